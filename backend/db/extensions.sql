@@ -0,0 +1,11 @@
+-- PostgreSQL extensions the application needs but does not create itself.
+--
+-- Run once per database, before the first start of the backend, as a superuser or the
+-- database owner (PostgreSQL 13+ lets database owners create trusted extensions like pg_trgm):
+--
+--   psql -U postgres -d hms_db -f backend/db/extensions.sql
+--
+-- docker-compose runs this file automatically when it initialises a new database volume.
+
+-- Trigram matching for the staff search endpoints (search-indexes.sql, SearchService)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
@@ -0,0 +1,51 @@
+package com.hms.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ExecutorConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutorConfig.class);
+
+    /**
+     * Executor for fanning out independent read queries of a single request. Uses virtual
+     * threads when the runtime has them (Java 21+), otherwise a bounded platform pool that
+     * falls back to running on the caller when saturated. Either way the Hikari pool caps the
+     * number of queries actually in flight.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService queryFanOutExecutor(@Value("${hms.dashboard.executor.threads:16}") int threads,
+                                               @Value("${hms.dashboard.executor.queue-capacity:256}") int queueCapacity) {
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            log.info("Query fan-out executor uses virtual threads");
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            log.info("Virtual threads unavailable, query fan-out executor uses {} platform threads", threads);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "query-fan-out-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -111,10 +111,15 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.GET, "/hms/patient/bills/**").hasRole("PATIENT")
                 
                 // Generic API routes
+                .requestMatchers("/hms/api/doctor/**").hasRole("DOCTOR")
                 .requestMatchers("/hms/api/appointments/**").hasAnyRole("DOCTOR", "NURSE", "ADMIN", "PATIENT")
                 .requestMatchers("/hms/api/medical-records/**").hasAnyRole("DOCTOR", "NURSE", "ADMIN", "PATIENT")
                 .requestMatchers("/hms/api/prescriptions/**").hasAnyRole("DOCTOR", "NURSE", "ADMIN", "PATIENT")
+                .requestMatchers(HttpMethod.POST, "/hms/api/bills/**").hasRole("ADMIN")
                 .requestMatchers("/hms/api/bills/**").hasAnyRole("ADMIN", "DOCTOR", "NURSE", "PATIENT")
+                .requestMatchers("/hms/api/emergency/**").hasAnyRole("DOCTOR", "NURSE", "ADMIN")
+                .requestMatchers("/hms/api/search/users/**").hasRole("ADMIN")
+                .requestMatchers("/hms/api/search/**").hasAnyRole("DOCTOR", "NURSE", "ADMIN")
                 .requestMatchers("/hms/api/**").authenticated()
                 
                 // All other requests require authentication
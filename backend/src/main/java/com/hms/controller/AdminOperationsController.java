@@ -0,0 +1,114 @@
+package com.hms.controller;
+
+import com.hms.dto.BalanceReconciliationReport;
+import com.hms.dto.ClaimExportReport;
+import com.hms.dto.DunningReport;
+import com.hms.dto.InvoicingReport;
+import com.hms.dto.RollupRebuildReport;
+import com.hms.dto.SweepReport;
+import com.hms.service.AppointmentSweeper;
+import com.hms.service.ClaimExportJob;
+import com.hms.service.DunningJob;
+import com.hms.service.InvoicingJob;
+import com.hms.service.PatientBalanceLedger;
+import com.hms.service.RevenueRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+/**
+ * Status and manual triggers for background jobs. Secured by the /hms/admin/** ADMIN rule.
+ */
+@RestController
+@RequestMapping("/hms/admin/operations")
+public class AdminOperationsController {
+
+    private final AppointmentSweeper appointmentSweeper;
+    private final PatientBalanceLedger balanceLedger;
+    private final RevenueRollupService revenueRollupService;
+    private final InvoicingJob invoicingJob;
+    private final DunningJob dunningJob;
+    private final ClaimExportJob claimExportJob;
+
+    public AdminOperationsController(AppointmentSweeper appointmentSweeper, PatientBalanceLedger balanceLedger,
+                                     RevenueRollupService revenueRollupService, InvoicingJob invoicingJob,
+                                     DunningJob dunningJob, ClaimExportJob claimExportJob) {
+        this.appointmentSweeper = appointmentSweeper;
+        this.balanceLedger = balanceLedger;
+        this.revenueRollupService = revenueRollupService;
+        this.invoicingJob = invoicingJob;
+        this.dunningJob = dunningJob;
+        this.claimExportJob = claimExportJob;
+    }
+
+    @GetMapping("/appointment-sweeper")
+    public ResponseEntity<SweepReport> getAppointmentSweeperReport() {
+        SweepReport report = appointmentSweeper.getLastReport();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/appointment-sweeper/run")
+    public ResponseEntity<SweepReport> runAppointmentSweeper() {
+        return ResponseEntity.ok(appointmentSweeper.sweep());
+    }
+
+    @GetMapping("/balance-reconciliation")
+    public ResponseEntity<BalanceReconciliationReport> getBalanceReconciliationReport() {
+        BalanceReconciliationReport report = balanceLedger.getLastReport();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/balance-reconciliation/run")
+    public ResponseEntity<BalanceReconciliationReport> runBalanceReconciliation() {
+        return ResponseEntity.ok(balanceLedger.reconcile());
+    }
+
+    /**
+     * Live progress while an invoicing run is going, otherwise the last run's report.
+     */
+    @GetMapping("/invoicing")
+    public ResponseEntity<InvoicingReport> getInvoicingReport() {
+        InvoicingReport report = invoicingJob.getProgress();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/invoicing/run")
+    public ResponseEntity<InvoicingReport> runInvoicing() {
+        return ResponseEntity.ok(invoicingJob.run());
+    }
+
+    @GetMapping("/dunning")
+    public ResponseEntity<DunningReport> getDunningReport() {
+        DunningReport report = dunningJob.getProgress();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/dunning/run")
+    public ResponseEntity<DunningReport> runDunning() {
+        return ResponseEntity.ok(dunningJob.run());
+    }
+
+    @GetMapping("/claims-export")
+    public ResponseEntity<ClaimExportReport> getClaimExportReport() {
+        ClaimExportReport report = claimExportJob.getProgress();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/claims-export/run")
+    public ResponseEntity<ClaimExportReport> runClaimExport() {
+        return ResponseEntity.ok(claimExportJob.run());
+    }
+
+    @PostMapping("/revenue-rollups/rebuild")
+    public ResponseEntity<RollupRebuildReport> rebuildRevenueRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(revenueRollupService.rebuild(from, to));
+    }
+}
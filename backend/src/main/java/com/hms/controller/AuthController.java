@@ -3,6 +3,7 @@ package com.hms.controller;
 import com.hms.entity.Patient;
 import com.hms.entity.User;
 import com.hms.repository.PatientRepository;
+import com.hms.service.BusinessIdGenerator;
 import com.hms.service.UserService;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,10 +16,13 @@ public class AuthController {
 
     private final UserService userService;
     private final PatientRepository patientRepository;
+    private final BusinessIdGenerator idGenerator;
 
-    public AuthController(UserService userService, PatientRepository patientRepository) {
+    public AuthController(UserService userService, PatientRepository patientRepository,
+                          BusinessIdGenerator idGenerator) {
         this.userService = userService;
         this.patientRepository = patientRepository;
+        this.idGenerator = idGenerator;
     }
 
     @PostMapping("/register")
@@ -34,7 +38,7 @@ public class AuthController {
             if (user.getRole() == User.UserRole.PATIENT) {
                 Patient patient = new Patient();
                 patient.setUser(savedUser);
-                patient.setPatientId("PAT-" + System.currentTimeMillis() / 1000); // Generate simple ID
+                patient.setPatientId(idGenerator.next(BusinessIdGenerator.Kind.PATIENT));
                 patient.setIsActive(true);
                 patientRepository.save(patient);
             }
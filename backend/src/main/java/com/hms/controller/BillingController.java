@@ -0,0 +1,69 @@
+package com.hms.controller;
+
+import com.hms.dto.PaymentReceipt;
+import com.hms.entity.Bill;
+import com.hms.service.BillService;
+import com.hms.service.IdempotencyConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Payment posting for billing staff and payment gateway callbacks. POSTs are ADMIN only (see
+ * SecurityConfig).
+ */
+@RestController
+@RequestMapping("/hms/api/bills")
+public class BillingController {
+
+    private final BillService billService;
+
+    public BillingController(BillService billService) {
+        this.billService = billService;
+    }
+
+    /**
+     * Posts a payment once per {@code Idempotency-Key}: 201 when it was recorded, 200 with the
+     * original receipt when the key was seen before, 409 when the key belongs to a different payment.
+     */
+    @PostMapping("/{billId}/payments")
+    public ResponseEntity<PaymentReceipt> recordPayment(
+            @PathVariable Long billId,
+            @RequestHeader("Idempotency-Key") String idempotencyKey,
+            @RequestBody PaymentRequest request) {
+        PaymentReceipt receipt = billService.recordPayment(billId, idempotencyKey, request.getAmount(),
+                request.getPaymentMethod(), request.getPaymentReference());
+        return ResponseEntity.status(receipt.replayed() ? HttpStatus.OK : HttpStatus.CREATED).body(receipt);
+    }
+
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleConflict(IdempotencyConflictException e) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", e.getMessage());
+        body.put("idempotencyKey", e.getIdempotencyKey());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
+    public static class PaymentRequest {
+        private BigDecimal amount;
+        private Bill.PaymentMethod paymentMethod;
+        private String paymentReference;
+
+        public BigDecimal getAmount() { return amount; }
+        public void setAmount(BigDecimal amount) { this.amount = amount; }
+        public Bill.PaymentMethod getPaymentMethod() { return paymentMethod; }
+        public void setPaymentMethod(Bill.PaymentMethod paymentMethod) { this.paymentMethod = paymentMethod; }
+        public String getPaymentReference() { return paymentReference; }
+        public void setPaymentReference(String paymentReference) { this.paymentReference = paymentReference; }
+    }
+}
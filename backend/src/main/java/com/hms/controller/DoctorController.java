@@ -0,0 +1,40 @@
+package com.hms.controller;
+
+import com.hms.dto.CursorPage;
+import com.hms.dto.DoctorAppointmentView;
+import com.hms.security.CustomUserDetails;
+import com.hms.service.AppointmentService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * The signed-in doctor's own listings. Secured by the /hms/api/doctor/** DOCTOR rule.
+ */
+@RestController
+@RequestMapping("/hms/api/doctor")
+public class DoctorController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final AppointmentService appointmentService;
+
+    public DoctorController(AppointmentService appointmentService) {
+        this.appointmentService = appointmentService;
+    }
+
+    @GetMapping("/appointments/scroll")
+    public ResponseEntity<CursorPage<DoctorAppointmentView>> scrollAppointments(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        return ResponseEntity.ok(appointmentService.scrollAppointmentsForDoctor(
+                userDetails.getId(), cursor, Math.max(1, Math.min(size, MAX_PAGE_SIZE)), includeTotal));
+    }
+}
@@ -0,0 +1,27 @@
+package com.hms.controller;
+
+import com.hms.service.EmergencyBroadcaster;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Live feed for emergency boards. Restricted to clinical staff in SecurityConfig.
+ */
+@RestController
+@RequestMapping("/hms/api/emergency")
+public class EmergencyBoardController {
+
+    private final EmergencyBroadcaster emergencyBroadcaster;
+
+    public EmergencyBoardController(EmergencyBroadcaster emergencyBroadcaster) {
+        this.emergencyBroadcaster = emergencyBroadcaster;
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return emergencyBroadcaster.subscribe();
+    }
+}
@@ -1,5 +1,15 @@
 package com.hms.controller;
 
+import com.hms.dto.AppointmentView;
+import com.hms.dto.BillView;
+import com.hms.dto.CursorPage;
+import com.hms.dto.FreeSlot;
+import com.hms.dto.MedicalRecordView;
+import com.hms.dto.PrescriptionView;
+import com.hms.dto.ResourceStamp;
+import com.hms.dto.SeriesBookingResult;
+import com.hms.dto.WaitlistEntry;
+import com.hms.dto.WaitlistOffer;
 import com.hms.entity.*;
 import com.hms.repository.PatientRepository;
 import com.hms.security.CustomUserDetails;
@@ -10,13 +20,17 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -24,57 +38,157 @@ import java.util.Optional;
 @RequestMapping("/hms/api/patient")
 public class PatientController {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    // Let browsers keep responses but revalidate them with the ETag on every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    
     private final UserService userService;
     private final PatientRepository patientRepository;
     private final AppointmentService appointmentService;
     private final MedicalRecordService medicalRecordService;
     private final PrescriptionService prescriptionService;
     private final BillService billService;
+    private final WaitlistService waitlistService;
+    private final DashboardService dashboardService;
+    private final ResourceStampService resourceStampService;
 
     public PatientController(UserService userService, PatientRepository patientRepository, 
                             AppointmentService appointmentService, MedicalRecordService medicalRecordService, 
-                            PrescriptionService prescriptionService, BillService billService) {
+                            PrescriptionService prescriptionService, BillService billService,
+                            WaitlistService waitlistService, DashboardService dashboardService,
+                            ResourceStampService resourceStampService) {
         this.userService = userService;
         this.patientRepository = patientRepository;
         this.appointmentService = appointmentService;
         this.medicalRecordService = medicalRecordService;
         this.prescriptionService = prescriptionService;
         this.billService = billService;
+        this.waitlistService = waitlistService;
+        this.dashboardService = dashboardService;
+        this.resourceStampService = resourceStampService;
     }
     
     @GetMapping("/dashboard")
-    public ResponseEntity<?> getDashboardData(Authentication authentication) {
+    public ResponseEntity<?> getDashboardData(Authentication authentication, WebRequest webRequest) {
         CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
         Long patientId = userDetails.getId();
         
-        Map<String, Object> dashboardData = new HashMap<>();
+        ResourceStamp stamp = resourceStampService.stampForPatient(patientId, ResourceStampService.Scope.APPOINTMENTS,
+                ResourceStampService.Scope.MEDICAL_RECORDS, ResourceStampService.Scope.PRESCRIPTIONS,
+                ResourceStampService.Scope.BILLS);
+        // "Recent" is relative to today, so the dashboard also changes at midnight
+        if (webRequest.checkNotModified(stamp.etag() + "-" + LocalDate.now(), stamp.lastModifiedMillis())) {
+            return null;
+        }
         
-        // Recent appointments
-        dashboardData.put("recentAppointments", appointmentService.getRecentAppointmentsForPatient(patientId, 5));
+        // Recent appointments, records, prescriptions and outstanding amount, loaded concurrently
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(dashboardService.getPatientDashboard(patientId));
+    }
+    
+    @GetMapping("/appointments")
+    public ResponseEntity<Page<AppointmentView>> getAppointments(
+            Authentication authentication,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "appointmentDate,desc") String sort,
+            WebRequest webRequest) {
         
-        // Recent medical records
-        dashboardData.put("recentRecords", medicalRecordService.getRecentMedicalRecordsForPatient(patientId, 5));
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        if (notModified(webRequest, userDetails.getId(), ResourceStampService.Scope.APPOINTMENTS)) {
+            return null;
+        }
+        Pageable pageable = PageRequest.of(page, size, Sort.by(sort.split(",")[0]).descending());
         
-        // Recent prescriptions
-        dashboardData.put("recentPrescriptions", prescriptionService.getRecentPrescriptionsForPatient(patientId, 5));
+        return ResponseEntity.ok().cacheControl(REVALIDATE)
+                .body(appointmentService.getAppointmentsForPatient(userDetails.getId(), pageable));
+    }
+    
+    @GetMapping("/appointments/scroll")
+    public ResponseEntity<CursorPage<AppointmentView>> scrollAppointments(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            WebRequest webRequest) {
         
-        // Outstanding bill amount
-        dashboardData.put("outstandingAmount", billService.getOutstandingAmountForPatient(patientId).orElse(BigDecimal.ZERO));
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        if (notModified(webRequest, userDetails.getId(), ResourceStampService.Scope.APPOINTMENTS)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(appointmentService.scrollAppointmentsForPatient(
+                userDetails.getId(), cursor, clampPageSize(size), includeTotal));
+    }
+    
+    @GetMapping("/medical-records/scroll")
+    public ResponseEntity<CursorPage<MedicalRecordView>> scrollMedicalRecords(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            WebRequest webRequest) {
         
-        return ResponseEntity.ok(dashboardData);
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        if (notModified(webRequest, userDetails.getId(), ResourceStampService.Scope.MEDICAL_RECORDS)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(medicalRecordService.scrollMedicalRecordsForPatient(
+                userDetails.getId(), cursor, clampPageSize(size), includeTotal));
     }
     
-    @GetMapping("/appointments")
-    public ResponseEntity<Page<Appointment>> getAppointments(
+    @GetMapping("/prescriptions/scroll")
+    public ResponseEntity<CursorPage<PrescriptionView>> scrollPrescriptions(
             Authentication authentication,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "appointmentDate,desc") String sort) {
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            WebRequest webRequest) {
         
         CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sort.split(",")[0]).descending());
+        if (notModified(webRequest, userDetails.getId(), ResourceStampService.Scope.PRESCRIPTIONS)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(prescriptionService.scrollPrescriptionsForPatient(
+                userDetails.getId(), cursor, clampPageSize(size), includeTotal));
+    }
+    
+    @GetMapping("/bills/scroll")
+    public ResponseEntity<CursorPage<BillView>> scrollBills(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            WebRequest webRequest) {
         
-        return ResponseEntity.ok(appointmentService.getAppointmentsForPatient(userDetails.getId(), pageable));
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        if (notModified(webRequest, userDetails.getId(), ResourceStampService.Scope.BILLS)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(billService.scrollBillsForPatient(
+                userDetails.getId(), cursor, clampPageSize(size), includeTotal));
+    }
+    
+    /**
+     * Answers 304 when the client's ETag / Last-Modified still matches the patient's rows in
+     * the given scope; otherwise sets both validators on the response.
+     */
+    private boolean notModified(WebRequest webRequest, Long patientId, ResourceStampService.Scope scope) {
+        ResourceStamp stamp = resourceStampService.stampForPatient(patientId, scope);
+        return webRequest.checkNotModified(stamp.etag(), stamp.lastModifiedMillis());
+    }
+    
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+    
+    @GetMapping("/appointments/available-slots")
+    public ResponseEntity<List<FreeSlot>> getAvailableSlots(
+            @RequestParam(required = false) String specialization,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "14") int days,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        LocalDate fromDate = from != null ? from : LocalDate.now();
+        return ResponseEntity.ok(appointmentService.findEarliestFreeSlots(specialization, fromDate, days, Math.min(limit, 50)));
     }
     
     @PostMapping("/appointments/book")
@@ -95,16 +209,128 @@ public class PatientController {
         User doctor = userService.findById(request.getDoctorId())
                 .orElseThrow(() -> new RuntimeException("Doctor not found"));
         
-        Appointment appointment = appointmentService.bookAppointment(
-                patient,
-                doctor,
-                request.getAppointmentDate(),
-                request.getAppointmentTime(),
-                request.getReason(),
-                request.getNotes()
-        );
+        try {
+            Appointment appointment = appointmentService.bookAppointment(
+                    patient,
+                    doctor,
+                    request.getAppointmentDate(),
+                    request.getAppointmentTime(),
+                    request.getReason(),
+                    request.getNotes()
+            );
+            return ResponseEntity.ok(AppointmentView.from(appointment));
+        } catch (SlotUnavailableException e) {
+            return slotTaken(e, doctor);
+        }
+    }
+    
+    @PostMapping("/appointments/book-series")
+    public ResponseEntity<?> bookAppointmentSeries(
+            Authentication authentication,
+            @RequestBody AppointmentSeriesRequest request) {
+        
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        
+        User patientUser = userService.findById(userDetails.getId())
+                .orElseThrow(() -> new RuntimeException("Patient user not found"));
+        
+        Patient patient = patientRepository.findByUser(patientUser);
+        if (patient == null) {
+            throw new RuntimeException("Patient record not found");
+        }
+        
+        User doctor = userService.findById(request.getDoctorId())
+                .orElseThrow(() -> new RuntimeException("Doctor not found"));
+        
+        try {
+            SeriesBookingResult result = appointmentService.bookAppointmentSeries(
+                    patient,
+                    doctor,
+                    request.getStartDate(),
+                    request.getIntervalDays(),
+                    request.getOccurrences(),
+                    request.getAppointmentTime(),
+                    request.getReason(),
+                    request.getNotes(),
+                    request.isAllOrNothing()
+            );
+            return ResponseEntity.ok(result);
+        } catch (SlotUnavailableException e) {
+            return slotTaken(e, doctor);
+        }
+    }
+    
+    @GetMapping("/waitlist")
+    public ResponseEntity<List<WaitlistEntry>> getWaitlistEntries(Authentication authentication) {
+        return ResponseEntity.ok(waitlistService.getEntriesForPatient(currentPatient(authentication).getId()));
+    }
+    
+    @PostMapping("/waitlist")
+    public ResponseEntity<WaitlistEntry> joinWaitlist(
+            Authentication authentication,
+            @RequestBody WaitlistRequest request) {
+        
+        Patient patient = currentPatient(authentication);
+        User doctor = userService.findById(request.getDoctorId())
+                .orElseThrow(() -> new RuntimeException("Doctor not found"));
+        
+        // Self-service entries are never emergencies; clinical staff escalate through WaitlistService
+        return ResponseEntity.ok(waitlistService.join(patient.getId(), doctor.getId(),
+                request.getEarliestDate(), request.getLatestDate(), false));
+    }
+    
+    @DeleteMapping("/waitlist/{entryId}")
+    public ResponseEntity<?> leaveWaitlist(Authentication authentication, @PathVariable Long entryId) {
+        boolean removed = waitlistService.leave(currentPatient(authentication).getId(), entryId);
+        return removed ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+    
+    @GetMapping("/waitlist/offers")
+    public ResponseEntity<List<WaitlistOffer>> getWaitlistOffers(Authentication authentication) {
+        return ResponseEntity.ok(waitlistService.getOffersForPatient(currentPatient(authentication).getId()));
+    }
+    
+    @PostMapping("/waitlist/offers/{offerId}/accept")
+    public ResponseEntity<?> acceptWaitlistOffer(
+            Authentication authentication,
+            @PathVariable Long offerId,
+            @RequestBody WaitlistAcceptRequest request) {
         
-        return ResponseEntity.ok(appointment);
+        Patient patient = currentPatient(authentication);
+        try {
+            Appointment appointment = waitlistService.accept(offerId, patient, request.getReason(), request.getNotes());
+            return ResponseEntity.ok(AppointmentView.from(appointment));
+        } catch (SlotUnavailableException e) {
+            User doctor = userService.findById(e.getDoctorId())
+                    .orElseThrow(() -> new RuntimeException("Doctor not found"));
+            return slotTaken(e, doctor);
+        }
+    }
+    
+    @PostMapping("/waitlist/offers/{offerId}/decline")
+    public ResponseEntity<?> declineWaitlistOffer(Authentication authentication, @PathVariable Long offerId) {
+        waitlistService.decline(offerId, currentPatient(authentication).getId());
+        return ResponseEntity.ok().build();
+    }
+    
+    private Patient currentPatient(Authentication authentication) {
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        
+        User patientUser = userService.findById(userDetails.getId())
+                .orElseThrow(() -> new RuntimeException("Patient user not found"));
+        
+        Patient patient = patientRepository.findByUser(patientUser);
+        if (patient == null) {
+            throw new RuntimeException("Patient record not found");
+        }
+        return patient;
+    }
+    
+    private ResponseEntity<Map<String, Object>> slotTaken(SlotUnavailableException e, User doctor) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", e.getMessage());
+        body.put("alternatives", appointmentService.findEarliestFreeSlots(List.of(doctor), e.getDate(), 7, 5));
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
     }
     
     public static class AppointmentRequest {
@@ -127,4 +353,61 @@ public class PatientController {
         public String getNotes() { return notes; }
         public void setNotes(String notes) { this.notes = notes; }
     }
+    
+    public static class AppointmentSeriesRequest {
+        @NotNull private Long doctorId;
+        @NotNull private LocalDate startDate;
+        @NotBlank private String appointmentTime;
+        private int intervalDays = 7;
+        private int occurrences = 10;
+        @NotBlank private String reason;
+        private String notes;
+        private boolean allOrNothing = true;
+
+        public AppointmentSeriesRequest() {}
+
+        public Long getDoctorId() { return doctorId; }
+        public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+        public LocalDate getStartDate() { return startDate; }
+        public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+        public String getAppointmentTime() { return appointmentTime; }
+        public void setAppointmentTime(String appointmentTime) { this.appointmentTime = appointmentTime; }
+        public int getIntervalDays() { return intervalDays; }
+        public void setIntervalDays(int intervalDays) { this.intervalDays = intervalDays; }
+        public int getOccurrences() { return occurrences; }
+        public void setOccurrences(int occurrences) { this.occurrences = occurrences; }
+        public String getReason() { return reason; }
+        public void setReason(String reason) { this.reason = reason; }
+        public String getNotes() { return notes; }
+        public void setNotes(String notes) { this.notes = notes; }
+        public boolean isAllOrNothing() { return allOrNothing; }
+        public void setAllOrNothing(boolean allOrNothing) { this.allOrNothing = allOrNothing; }
+    }
+    
+    public static class WaitlistRequest {
+        @NotNull private Long doctorId;
+        @NotNull private LocalDate earliestDate;
+        @NotNull private LocalDate latestDate;
+
+        public WaitlistRequest() {}
+
+        public Long getDoctorId() { return doctorId; }
+        public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+        public LocalDate getEarliestDate() { return earliestDate; }
+        public void setEarliestDate(LocalDate earliestDate) { this.earliestDate = earliestDate; }
+        public LocalDate getLatestDate() { return latestDate; }
+        public void setLatestDate(LocalDate latestDate) { this.latestDate = latestDate; }
+    }
+    
+    public static class WaitlistAcceptRequest {
+        @NotBlank private String reason;
+        private String notes;
+
+        public WaitlistAcceptRequest() {}
+
+        public String getReason() { return reason; }
+        public void setReason(String reason) { this.reason = reason; }
+        public String getNotes() { return notes; }
+        public void setNotes(String notes) { this.notes = notes; }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.hms.controller;
+
+import com.hms.dto.RevenueReport;
+import com.hms.service.RevenueRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+/**
+ * Finance reports, answered from the daily revenue rollups. Secured by the /hms/admin/** ADMIN rule.
+ */
+@RestController
+@RequestMapping("/hms/admin/reports")
+public class ReportController {
+
+    private final RevenueRollupService revenueRollupService;
+
+    public ReportController(RevenueRollupService revenueRollupService) {
+        this.revenueRollupService = revenueRollupService;
+    }
+
+    @GetMapping("/revenue")
+    public ResponseEntity<RevenueReport> getRevenueReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        return ResponseEntity.ok(revenueRollupService.getReport(from, to));
+    }
+}
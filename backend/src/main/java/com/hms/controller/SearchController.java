@@ -0,0 +1,75 @@
+package com.hms.controller;
+
+import com.hms.dto.MedicalRecordSearchHit;
+import com.hms.dto.MedicationSuggestion;
+import com.hms.dto.PatientSearchHit;
+import com.hms.dto.UserSearchHit;
+import com.hms.entity.User;
+import com.hms.security.CustomUserDetails;
+import com.hms.service.MedicationDictionary;
+import com.hms.service.SearchService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Search endpoints for staff. Patient and medical record search are open to clinical staff,
+ * user search to admins (see SecurityConfig).
+ */
+@RestController
+@RequestMapping("/hms/api/search")
+public class SearchController {
+
+    private final SearchService searchService;
+    private final MedicationDictionary medicationDictionary;
+
+    public SearchController(SearchService searchService, MedicationDictionary medicationDictionary) {
+        this.searchService = searchService;
+        this.medicationDictionary = medicationDictionary;
+    }
+
+    @GetMapping("/patients")
+    public ResponseEntity<List<PatientSearchHit>> searchPatients(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(searchService.searchPatients(query, limit));
+    }
+
+    @GetMapping("/users")
+    public ResponseEntity<List<UserSearchHit>> searchUsers(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) User.UserRole role,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(searchService.searchUsers(query, role, limit));
+    }
+
+    /**
+     * Frequency-ranked medication and generic name completions for the prescription form.
+     */
+    @GetMapping("/medications")
+    public ResponseEntity<List<MedicationSuggestion>> suggestMedications(
+            @RequestParam("prefix") String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(medicationDictionary.complete(prefix, limit));
+    }
+
+    /**
+     * Clinical audit search across all patients, or within one with {@code patientId}.
+     * Confidential records are visible to admins and to the doctor who wrote them.
+     */
+    @GetMapping("/medical-records")
+    public ResponseEntity<List<MedicalRecordSearchHit>> searchMedicalRecords(
+            Authentication authentication,
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(defaultValue = "20") int limit) {
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        return ResponseEntity.ok(searchService.searchMedicalRecords(
+                query, patientId, userDetails.getId(), userDetails.isAdmin(), limit));
+    }
+}
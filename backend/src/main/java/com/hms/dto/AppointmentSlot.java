@@ -0,0 +1,10 @@
+package com.hms.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Occupancy of a single appointment: only the columns the schedule index needs.
+ */
+public record AppointmentSlot(Long doctorId, LocalDate appointmentDate, LocalTime appointmentTime, Integer durationMinutes) {
+}
@@ -0,0 +1,18 @@
+package com.hms.dto;
+
+import com.hms.entity.Appointment;
+
+import java.time.LocalTime;
+
+/**
+ * One row of a doctor's day view: just what the dashboard shows, without the entity graph.
+ */
+public record AppointmentSummary(Long appointmentId, Long patientId, String patientName, LocalTime appointmentTime,
+                                 Integer durationMinutes, Appointment.AppointmentStatus status, Boolean emergency,
+                                 String reason) {
+
+    public AppointmentSummary withStatus(Appointment.AppointmentStatus newStatus) {
+        return new AppointmentSummary(appointmentId, patientId, patientName, appointmentTime, durationMinutes,
+                newStatus, emergency, reason);
+    }
+}
@@ -0,0 +1,32 @@
+package com.hms.dto;
+
+import com.hms.entity.Appointment;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Patient-facing appointment row, selected by a single joined query instead of serializing
+ * the entity and its lazy associations.
+ */
+public record AppointmentView(Long id, LocalDate appointmentDate, LocalTime appointmentTime, Integer durationMinutes,
+                              Appointment.AppointmentStatus status, String reason, Boolean isEmergency,
+                              Long doctorId, String doctorName, String departmentName) {
+
+    /**
+     * For appointments just written in the current transaction, whose doctor is already loaded.
+     */
+    public static AppointmentView from(Appointment appointment) {
+        return new AppointmentView(
+                appointment.getId(),
+                appointment.getAppointmentDate(),
+                appointment.getAppointmentTime(),
+                appointment.getDurationMinutes(),
+                appointment.getStatus(),
+                appointment.getReason(),
+                appointment.getIsEmergency(),
+                appointment.getDoctor().getId(),
+                appointment.getDoctor().getFirstName() + " " + appointment.getDoctor().getLastName(),
+                appointment.getDepartment() != null ? appointment.getDepartment().getDepartmentName() : null);
+    }
+}
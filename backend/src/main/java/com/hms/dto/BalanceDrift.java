@@ -0,0 +1,10 @@
+package com.hms.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A patient whose ledger balance disagrees with the sum over their open bills.
+ */
+public record BalanceDrift(Long patientId, BigDecimal recordedAmount, BigDecimal expectedAmount,
+                           long recordedOpenBills, long expectedOpenBills) {
+}
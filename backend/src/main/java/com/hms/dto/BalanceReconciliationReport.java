@@ -0,0 +1,12 @@
+package com.hms.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outcome of one ledger reconciliation. {@code drifts} lists at most the first few mismatches;
+ * {@code driftCount} is the full number.
+ */
+public record BalanceReconciliationReport(LocalDateTime startedAt, LocalDateTime finishedAt, long driftCount,
+                                          long repaired, List<BalanceDrift> drifts) {
+}
@@ -0,0 +1,14 @@
+package com.hms.dto;
+
+import com.hms.entity.Bill;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Patient-facing bill row: the amounts and states shown in the billing list.
+ */
+public record BillView(Long id, String billNumber, LocalDate billDate, LocalDate dueDate, Bill.BillType billType,
+                       String itemName, BigDecimal finalAmount, BigDecimal paidAmount, Bill.BillStatus status,
+                       Bill.PaymentStatus paymentStatus) {
+}
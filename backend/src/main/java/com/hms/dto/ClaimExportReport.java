@@ -0,0 +1,14 @@
+package com.hms.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Progress or outcome of an insurance claim export; {@code finishedAt} is null while the run is
+ * still going. {@code filesRecovered} counts unfinished files of an interrupted run that this
+ * run trimmed to their submitted claims and completed.
+ */
+public record ClaimExportReport(LocalDateTime startedAt, LocalDateTime finishedAt, long billsExported,
+                                BigDecimal amountClaimed, int providers, int filesWritten, int filesRecovered,
+                                int chunks, long averageChunkMillis, long maxChunkMillis) {
+}
@@ -0,0 +1,22 @@
+package com.hms.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (seek) listing. {@code totalElements} is only filled when the caller
+ * asked for it, because it costs an extra COUNT query.
+ */
+public record CursorPage<T>(List<T> content, String nextCursor, boolean hasNext, Long totalElements) {
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}; the extra row only
+     * signals that another page exists.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, KeysetCursor> keyOf, Long totalElements) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? keyOf.apply(content.get(content.size() - 1)).encode() : null;
+        return new CursorPage<>(List.copyOf(content), nextCursor, hasNext, totalElements);
+    }
+}
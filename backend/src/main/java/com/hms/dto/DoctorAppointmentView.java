@@ -0,0 +1,15 @@
+package com.hms.dto;
+
+import com.hms.entity.Appointment;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Doctor-facing appointment row, selected by a single joined query instead of serializing
+ * the entity and its lazy associations.
+ */
+public record DoctorAppointmentView(Long id, LocalDate appointmentDate, LocalTime appointmentTime,
+                                    Integer durationMinutes, Appointment.AppointmentStatus status, String reason,
+                                    Boolean isEmergency, Long patientId, String patientName, String departmentName) {
+}
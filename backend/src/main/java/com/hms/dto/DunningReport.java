@@ -0,0 +1,14 @@
+package com.hms.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Progress or outcome of a dunning run; {@code finishedAt} is null while the run is still going.
+ * {@code billsScanned} counts every overdue bill streamed, {@code billsMarkedOverdue} only those
+ * whose payment status the run changed.
+ */
+public record DunningReport(LocalDateTime startedAt, LocalDateTime finishedAt, long billsScanned,
+                            long billsMarkedOverdue, long remindersSent, BigDecimal amountOverdue, int chunks,
+                            long averageChunkMillis, long maxChunkMillis) {
+}
@@ -0,0 +1,11 @@
+package com.hms.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * A bookable slot offered to a patient by the free-slot search.
+ */
+public record FreeSlot(Long doctorId, String doctorName, String specialization,
+                       LocalDate date, LocalTime time, int durationMinutes) {
+}
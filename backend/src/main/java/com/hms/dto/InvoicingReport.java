@@ -0,0 +1,13 @@
+package com.hms.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Progress or outcome of an invoicing run; {@code finishedAt} is null while the run is still
+ * going. {@code checkpointId} is the highest appointment id the run reached.
+ */
+public record InvoicingReport(LocalDateTime startedAt, LocalDateTime finishedAt, long billsCreated,
+                              BigDecimal amountInvoiced, int chunks, long averageChunkMillis, long maxChunkMillis,
+                              double billsPerSecond, Long checkpointId) {
+}
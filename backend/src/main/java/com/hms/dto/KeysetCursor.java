@@ -0,0 +1,34 @@
+package com.hms.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a keyset page: (date, time, id) in descending order. Lists
+ * without a time column leave {@code time} null. Sent to clients as an opaque token.
+ */
+public record KeysetCursor(LocalDate date, LocalTime time, Long id) {
+
+    public String encode() {
+        String raw = date + "|" + (time != null ? time : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new KeysetCursor(
+                    LocalDate.parse(parts[0]),
+                    parts[1].isEmpty() ? null : LocalTime.parse(parts[1]),
+                    Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
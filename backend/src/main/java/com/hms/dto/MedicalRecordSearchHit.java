@@ -0,0 +1,13 @@
+package com.hms.dto;
+
+import com.hms.entity.MedicalRecord;
+
+import java.time.LocalDate;
+
+/**
+ * A ranked medical record match with a highlighted excerpt of the matching narrative.
+ */
+public record MedicalRecordSearchHit(Long id, Long patientId, Long doctorId, LocalDate recordDate,
+                                     MedicalRecord.RecordType recordType, String chiefComplaint, String excerpt,
+                                     boolean confidential, double rank) {
+}
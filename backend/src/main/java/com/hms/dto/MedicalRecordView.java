@@ -0,0 +1,13 @@
+package com.hms.dto;
+
+import com.hms.entity.MedicalRecord;
+
+import java.time.LocalDate;
+
+/**
+ * Patient-facing medical record row: the summary fields and the treating doctor.
+ */
+public record MedicalRecordView(Long id, LocalDate recordDate, MedicalRecord.RecordType recordType, String chiefComplaint,
+                                String assessment, String plan, String followUpInstructions,
+                                LocalDate nextAppointmentDate, Long doctorId, String doctorName) {
+}
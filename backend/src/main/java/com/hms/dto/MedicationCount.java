@@ -0,0 +1,7 @@
+package com.hms.dto;
+
+/**
+ * Number of prescriptions per distinct pair of medication and generic name.
+ */
+public record MedicationCount(String medicationName, String genericName, Long count) {
+}
@@ -0,0 +1,7 @@
+package com.hms.dto;
+
+/**
+ * A medication name completion and how many prescriptions used it.
+ */
+public record MedicationSuggestion(String name, long frequency) {
+}
@@ -0,0 +1,8 @@
+package com.hms.dto;
+
+/**
+ * A ranked patient match for the front desk type-ahead.
+ */
+public record PatientSearchHit(Long patientId, Long userId, String patientNumber, String firstName, String lastName,
+                               String email, double score) {
+}
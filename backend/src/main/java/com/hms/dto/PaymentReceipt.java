@@ -0,0 +1,24 @@
+package com.hms.dto;
+
+import com.hms.entity.Bill;
+import com.hms.entity.BillPayment;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A recorded payment and the state of its bill afterwards. {@code replayed} is set when the
+ * idempotency key had already been used and nothing was posted this time; the bill figures are
+ * then current rather than as of the original posting.
+ */
+public record PaymentReceipt(Long paymentId, Long billId, String idempotencyKey, BigDecimal amount,
+                             Bill.PaymentMethod paymentMethod, String paymentReference, LocalDateTime receivedAt,
+                             BigDecimal billPaidAmount, BigDecimal billRemainingAmount,
+                             Bill.PaymentStatus billPaymentStatus, boolean replayed) {
+
+    public static PaymentReceipt of(BillPayment payment, Bill bill, boolean replayed) {
+        return new PaymentReceipt(payment.getId(), bill.getId(), payment.getIdempotencyKey(), payment.getAmount(),
+                payment.getPaymentMethod(), payment.getPaymentReference(), payment.getReceivedAt(),
+                bill.getPaidAmount(), bill.getRemainingAmount(), bill.getPaymentStatus(), replayed);
+    }
+}
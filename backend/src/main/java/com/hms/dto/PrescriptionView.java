@@ -0,0 +1,14 @@
+package com.hms.dto;
+
+import com.hms.entity.Prescription;
+
+import java.time.LocalDate;
+
+/**
+ * Patient-facing prescription row: what to take, how, and who prescribed it.
+ */
+public record PrescriptionView(Long id, LocalDate prescriptionDate, String medicationName, String dosage,
+                               String frequency, Integer durationDays, String instructions, LocalDate startDate,
+                               LocalDate endDate, Integer refillsAllowed, Integer refillsUsed,
+                               Prescription.PrescriptionStatus status, String doctorName) {
+}
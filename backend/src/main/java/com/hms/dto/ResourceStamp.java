@@ -0,0 +1,30 @@
+package com.hms.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Cheap validator for a set of rows: row count, sum of {@code @Version} values and latest
+ * {@code updatedAt}. Inserts and deletes move the count, every update bumps a version.
+ */
+public record ResourceStamp(long count, long versionSum, LocalDateTime lastModified) {
+
+    public static final ResourceStamp EMPTY = new ResourceStamp(0, 0, null);
+
+    public ResourceStamp combine(ResourceStamp other) {
+        LocalDateTime latest = lastModified == null ? other.lastModified
+                : other.lastModified == null || lastModified.isAfter(other.lastModified) ? lastModified : other.lastModified;
+        return new ResourceStamp(count + other.count, versionSum + other.versionSum, latest);
+    }
+
+    public String etag() {
+        return Long.toHexString(count) + "-" + Long.toHexString(versionSum) + "-" + Long.toHexString(lastModifiedMillis());
+    }
+
+    /**
+     * @return epoch millis of the latest change, or -1 when there are no rows
+     */
+    public long lastModifiedMillis() {
+        return lastModified != null ? lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
@@ -0,0 +1,13 @@
+package com.hms.dto;
+
+import com.hms.entity.Bill;
+
+import java.math.BigDecimal;
+
+/**
+ * Period totals for one bill type, department and payment method. Department 0 collects bills
+ * without one; payment method {@code NONE} collects unpaid bills.
+ */
+public record RevenueBreakdown(Bill.BillType billType, Long departmentId, String paymentMethod,
+                               BigDecimal billedAmount, Long billCount, BigDecimal collectedAmount) {
+}
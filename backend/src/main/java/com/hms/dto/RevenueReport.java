@@ -0,0 +1,9 @@
+package com.hms.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public record RevenueReport(LocalDate from, LocalDate to, BigDecimal billedAmount, long billCount,
+                            BigDecimal collectedAmount, List<RevenueBreakdown> breakdown) {
+}
@@ -0,0 +1,11 @@
+package com.hms.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of rebuilding revenue rollups for a date range, one calendar month per chunk.
+ */
+public record RollupRebuildReport(LocalDate from, LocalDate to, LocalDateTime startedAt, LocalDateTime finishedAt,
+                                  int chunks, long rollupRows) {
+}
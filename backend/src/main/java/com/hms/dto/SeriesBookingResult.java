@@ -0,0 +1,11 @@
+package com.hms.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Outcome of a recurring booking: the appointments that were created and the dates that
+ * could not be booked.
+ */
+public record SeriesBookingResult(List<AppointmentView> booked, List<LocalDate> unavailableDates) {
+}
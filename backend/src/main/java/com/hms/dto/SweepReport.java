@@ -0,0 +1,11 @@
+package com.hms.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one run of a chunked background job. {@code checkpointId} is the highest id
+ * the run reached.
+ */
+public record SweepReport(LocalDateTime startedAt, LocalDateTime finishedAt, long rowsProcessed, int chunks,
+                          long averageChunkMillis, long maxChunkMillis, Long checkpointId) {
+}
@@ -0,0 +1,11 @@
+package com.hms.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A completed appointment that has no consultation bill yet, as read by the invoicing run.
+ */
+public record UninvoicedAppointment(Long appointmentId, Long patientId, Long departmentId, LocalDate appointmentDate,
+                                    String reason, BigDecimal consultationFee, BigDecimal paidAmount) {
+}
@@ -0,0 +1,10 @@
+package com.hms.dto;
+
+import com.hms.entity.User;
+
+/**
+ * A ranked user account match.
+ */
+public record UserSearchHit(Long userId, String firstName, String lastName, String email, User.UserRole role,
+                            double score) {
+}
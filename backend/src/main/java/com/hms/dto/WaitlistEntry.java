@@ -0,0 +1,11 @@
+package com.hms.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A patient waiting for an earlier slot with a doctor, within [earliestDate, latestDate].
+ */
+public record WaitlistEntry(Long id, Long patientId, Long doctorId, LocalDate earliestDate, LocalDate latestDate,
+                            boolean emergency, LocalDateTime enqueuedAt) {
+}
@@ -0,0 +1,12 @@
+package com.hms.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * A freed slot held for a waitlisted patient until {@code expiresAt}.
+ */
+public record WaitlistOffer(Long id, Long entryId, Long patientId, Long doctorId, LocalDate date, LocalTime time,
+                            int durationMinutes, LocalDateTime expiresAt) {
+}
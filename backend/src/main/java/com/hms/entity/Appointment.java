@@ -7,9 +7,11 @@ import java.time.LocalTime;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "appointments", uniqueConstraints = {
-    @UniqueConstraint(name = "uk_doctor_time", columnNames = {"doctor_id", "appointment_date", "appointment_time"}),
-    @UniqueConstraint(name = "uk_patient_time", columnNames = {"patient_id", "appointment_date", "appointment_time"})
+// uk_doctor_time and uk_patient_time are partial unique indexes over active rows (appointment-indexes.sql)
+@Table(name = "appointments", indexes = {
+    @Index(name = "idx_appointment_patient_seek", columnList = "patient_id, appointment_date DESC, appointment_time DESC, id DESC"),
+    @Index(name = "idx_appointment_doctor_seek", columnList = "doctor_id, appointment_date DESC, appointment_time DESC, id DESC"),
+    @Index(name = "idx_appointment_status_date", columnList = "status, appointment_date")
 })
 public class Appointment extends BaseEntity {
     
@@ -11,8 +11,10 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public abstract class BaseEntity {
     
+    // Pooled sequence: ids are handed out in blocks of 50, which keeps JDBC insert batching possible
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hms_id_seq")
+    @SequenceGenerator(name = "hms_id_seq", sequenceName = "hms_id_seq", allocationSize = 50)
     private Long id;
     
     @CreatedDate
@@ -2,11 +2,17 @@ package com.hms.entity;
 
 import jakarta.persistence.*;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bills")
+@Table(name = "bills", indexes = {
+    @Index(name = "idx_bill_patient_seek", columnList = "patient_id, bill_date DESC, id DESC"),
+    // Month-by-month revenue rollup rebuilds
+    @Index(name = "idx_bill_bill_date", columnList = "bill_date"),
+    @Index(name = "idx_bill_payment_date", columnList = "payment_date")
+})
 public class Bill extends BaseEntity {
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -102,6 +108,10 @@ public class Bill extends BaseEntity {
     @Column(name = "insurance_claim_status", length = 20)
     private String insuranceClaimStatus;
 
+    // Claim export file this bill was submitted in
+    @Column(name = "insurance_claim_batch", length = 100)
+    private String insuranceClaimBatch;
+
     public Bill() {}
 
     public Patient getPatient() { return patient; }
@@ -162,6 +172,8 @@ public class Bill extends BaseEntity {
     public void setInsurancePolicyNumber(String insurancePolicyNumber) { this.insurancePolicyNumber = insurancePolicyNumber; }
     public String getInsuranceClaimStatus() { return insuranceClaimStatus; }
     public void setInsuranceClaimStatus(String insuranceClaimStatus) { this.insuranceClaimStatus = insuranceClaimStatus; }
+    public String getInsuranceClaimBatch() { return insuranceClaimBatch; }
+    public void setInsuranceClaimBatch(String insuranceClaimBatch) { this.insuranceClaimBatch = insuranceClaimBatch; }
 
     
     public BigDecimal getRemainingAmount() {
@@ -169,6 +181,37 @@ public class Bill extends BaseEntity {
         return finalAmount.subtract(paidAmount != null ? paidAmount : BigDecimal.ZERO);
     }
     
+    /**
+     * Derives the total, tax, discount and final amounts from quantity, unit price and the tax
+     * and discount percentages. Both percentages apply to the total; amounts are rounded to cents.
+     * Computed in {@link Money} unless an input has sub-cent digits.
+     */
+    public void calculateAmounts() {
+        if (unitPrice != null && Money.isExact(unitPrice)
+                && Money.isExact(taxPercentage) && Money.isExact(discountPercentage)) {
+            Money total = Money.of(unitPrice).times(quantity);
+            Money tax = total.percentage(Money.basisPoints(taxPercentage));
+            Money discount = total.percentage(Money.basisPoints(discountPercentage));
+            this.totalAmount = total.toBigDecimal();
+            this.amount = totalAmount;
+            this.taxAmount = tax.toBigDecimal();
+            this.discountAmount = discount.toBigDecimal();
+            this.finalAmount = total.plus(tax).minus(discount).toBigDecimal();
+            return;
+        }
+        BigDecimal total = unitPrice.multiply(BigDecimal.valueOf(quantity)).setScale(2, RoundingMode.HALF_UP);
+        this.totalAmount = total;
+        this.amount = total;
+        this.taxAmount = percentageOf(total, taxPercentage);
+        this.discountAmount = percentageOf(total, discountPercentage);
+        this.finalAmount = total.add(taxAmount).subtract(discountAmount);
+    }
+    
+    private static BigDecimal percentageOf(BigDecimal value, BigDecimal percentage) {
+        if (percentage == null) return BigDecimal.ZERO.setScale(2);
+        return value.multiply(percentage).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+    }
+    
     public boolean isPaid() {
         return (finalAmount != null && paidAmount != null) && (paidAmount.compareTo(finalAmount) >= 0);
     }
@@ -0,0 +1,54 @@
+package com.hms.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One payment posted against a bill. Rows are only ever inserted; the bill's paid amount is
+ * their running total. The idempotency key is supplied by the caller (cashier client, payment
+ * gateway callback) and makes a retried or duplicated posting a no-op.
+ */
+@Entity
+@Table(name = "bill_payments", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_bill_payment_idempotency_key", columnNames = {"idempotency_key"})
+}, indexes = {
+    @Index(name = "idx_bill_payment_bill", columnList = "bill_id")
+})
+public class BillPayment extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "bill_id", nullable = false, updatable = false)
+    private Bill bill;
+
+    @Column(name = "idempotency_key", nullable = false, updatable = false, length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "amount", nullable = false, updatable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", length = 20, updatable = false)
+    private Bill.PaymentMethod paymentMethod;
+
+    @Column(name = "payment_reference", length = 100, updatable = false)
+    private String paymentReference;
+
+    @Column(name = "received_at", nullable = false, updatable = false)
+    private LocalDateTime receivedAt;
+
+    public BillPayment() {}
+
+    public Bill getBill() { return bill; }
+    public void setBill(Bill bill) { this.bill = bill; }
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public Bill.PaymentMethod getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(Bill.PaymentMethod paymentMethod) { this.paymentMethod = paymentMethod; }
+    public String getPaymentReference() { return paymentReference; }
+    public void setPaymentReference(String paymentReference) { this.paymentReference = paymentReference; }
+    public LocalDateTime getReceivedAt() { return receivedAt; }
+    public void setReceivedAt(LocalDateTime receivedAt) { this.receivedAt = receivedAt; }
+}
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "medical_records")
+@Table(name = "medical_records", indexes = {
+    @Index(name = "idx_medical_record_patient_seek", columnList = "patient_id, record_date DESC, id DESC")
+})
 public class MedicalRecord extends BaseEntity {
     
     @ManyToOne(fetch = FetchType.LAZY)
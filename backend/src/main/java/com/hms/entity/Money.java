@@ -0,0 +1,115 @@
+package com.hms.entity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money as a count of cents, for computing and summing bill amounts without a
+ * BigDecimal allocation per operation.
+ *
+ * Entities and SQL keep BigDecimal columns with two decimals; {@link #of} and
+ * {@link #toBigDecimal} convert exactly at that boundary and {@link #of} refuses amounts with
+ * sub-cent digits instead of rounding them. Arithmetic throws on long overflow.
+ */
+public record Money(long minorUnits) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private static final long BASIS_POINTS_PER_UNIT = 10_000;
+    // 10^18 cents still fits a long
+    private static final int MAX_PRECISION = 18;
+
+    /**
+     * Converts an amount with at most two decimals; null counts as zero.
+     *
+     * @throws ArithmeticException if the amount has sub-cent digits or does not fit
+     */
+    public static Money of(BigDecimal amount) {
+        if (amount == null) {
+            return ZERO;
+        }
+        return new Money(amount.setScale(SCALE, RoundingMode.UNNECESSARY).movePointRight(SCALE).longValueExact());
+    }
+
+    /**
+     * Whether the amount has at most two decimals and at most 18 digits in cents, which
+     * {@link #of} always converts.
+     */
+    public static boolean isExact(BigDecimal amount) {
+        if (amount == null) {
+            return true;
+        }
+        if (amount.scale() > SCALE && amount.stripTrailingZeros().scale() > SCALE) {
+            return false;
+        }
+        return amount.precision() - amount.scale() + SCALE <= MAX_PRECISION;
+    }
+
+    /**
+     * A percentage with at most two decimals as basis points, e.g. 12.5 as 1250.
+     */
+    public static long basisPoints(BigDecimal percentage) {
+        return of(percentage).minorUnits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money times(long quantity) {
+        return new Money(Math.multiplyExact(minorUnits, quantity));
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits));
+    }
+
+    /**
+     * The given share of this amount, rounded half up to whole cents like
+     * {@code divide(..., 2, RoundingMode.HALF_UP)}.
+     */
+    public Money percentage(long basisPoints) {
+        long product = Math.multiplyExact(minorUnits, basisPoints);
+        long cents = product / BASIS_POINTS_PER_UNIT;
+        long remainder = Math.abs(product % BASIS_POINTS_PER_UNIT);
+        if (remainder * 2 >= BASIS_POINTS_PER_UNIT) {
+            cents += Long.signum(product);
+        }
+        return new Money(cents);
+    }
+
+    public Money max(Money other) {
+        return minorUnits >= other.minorUnits ? this : other;
+    }
+
+    public Money min(Money other) {
+        return minorUnits <= other.minorUnits ? this : other;
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
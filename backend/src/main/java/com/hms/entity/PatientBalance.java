@@ -0,0 +1,38 @@
+package com.hms.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Running total of what a patient still owes, kept by {@link com.hms.service.PatientBalanceLedger}
+ * in the same transaction as every bill change. Rows are written with SQL upserts only.
+ */
+@Entity
+@Table(name = "patient_balances")
+public class PatientBalance {
+
+    @Id
+    @Column(name = "patient_id")
+    private Long patientId;
+
+    @Column(name = "outstanding_amount", nullable = false)
+    private BigDecimal outstandingAmount = BigDecimal.ZERO;
+
+    @Column(name = "open_bills", nullable = false)
+    private Long openBills = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public PatientBalance() {}
+
+    public Long getPatientId() { return patientId; }
+    public void setPatientId(Long patientId) { this.patientId = patientId; }
+    public BigDecimal getOutstandingAmount() { return outstandingAmount; }
+    public void setOutstandingAmount(BigDecimal outstandingAmount) { this.outstandingAmount = outstandingAmount; }
+    public Long getOpenBills() { return openBills; }
+    public void setOpenBills(Long openBills) { this.openBills = openBills; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
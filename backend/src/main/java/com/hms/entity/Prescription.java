@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "prescriptions")
+@Table(name = "prescriptions", indexes = {
+    @Index(name = "idx_prescription_patient_seek", columnList = "patient_id, prescription_date DESC, id DESC")
+})
 public class Prescription extends BaseEntity {
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -19,6 +21,9 @@ public class Prescription extends BaseEntity {
     @JoinColumn(name = "appointment_id")
     private Appointment appointment;
     
+    @Column(name = "prescription_number", unique = true, length = 30)
+    private String prescriptionNumber;
+    
     @Column(name = "prescription_date", nullable = false)
     private LocalDate prescriptionDate;
     
@@ -121,6 +126,8 @@ public class Prescription extends BaseEntity {
     public void setDoctor(User doctor) { this.doctor = doctor; }
     public Appointment getAppointment() { return appointment; }
     public void setAppointment(Appointment appointment) { this.appointment = appointment; }
+    public String getPrescriptionNumber() { return prescriptionNumber; }
+    public void setPrescriptionNumber(String prescriptionNumber) { this.prescriptionNumber = prescriptionNumber; }
     public LocalDate getPrescriptionDate() { return prescriptionDate; }
     public void setPrescriptionDate(LocalDate prescriptionDate) { this.prescriptionDate = prescriptionDate; }
     public String getMedicationName() { return medicationName; }
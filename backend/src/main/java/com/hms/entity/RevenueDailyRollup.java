@@ -0,0 +1,44 @@
+package com.hms.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Billed and collected totals for one day and one combination of bill type, department and
+ * payment method, kept by {@link com.hms.service.RevenueRollupService}. Bills count towards
+ * their bill date, collections towards the date of the last payment. Written with SQL upserts
+ * only.
+ */
+@Entity
+@Table(name = "revenue_daily_rollups")
+public class RevenueDailyRollup {
+
+    @EmbeddedId
+    private RevenueRollupKey id;
+
+    @Column(name = "billed_amount", nullable = false)
+    private BigDecimal billedAmount = BigDecimal.ZERO;
+
+    @Column(name = "bill_count", nullable = false)
+    private Long billCount = 0L;
+
+    @Column(name = "collected_amount", nullable = false)
+    private BigDecimal collectedAmount = BigDecimal.ZERO;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public RevenueDailyRollup() {}
+
+    public RevenueRollupKey getId() { return id; }
+    public void setId(RevenueRollupKey id) { this.id = id; }
+    public BigDecimal getBilledAmount() { return billedAmount; }
+    public void setBilledAmount(BigDecimal billedAmount) { this.billedAmount = billedAmount; }
+    public Long getBillCount() { return billCount; }
+    public void setBillCount(Long billCount) { this.billCount = billCount; }
+    public BigDecimal getCollectedAmount() { return collectedAmount; }
+    public void setCollectedAmount(BigDecimal collectedAmount) { this.collectedAmount = collectedAmount; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
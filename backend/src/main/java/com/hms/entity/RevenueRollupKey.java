@@ -0,0 +1,57 @@
+package com.hms.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Dimensions of a daily revenue rollup. Bills without a department are rolled up under
+ * department 0, unpaid bills under payment method {@code NONE}.
+ */
+@Embeddable
+public class RevenueRollupKey implements Serializable {
+
+    public static final long NO_DEPARTMENT = 0L;
+    public static final String NO_PAYMENT_METHOD = "NONE";
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "bill_type", nullable = false, length = 50)
+    private Bill.BillType billType;
+
+    @Column(name = "department_id", nullable = false)
+    private Long departmentId;
+
+    @Column(name = "payment_method", nullable = false, length = 20)
+    private String paymentMethod;
+
+    public RevenueRollupKey() {}
+
+    public RevenueRollupKey(LocalDate rollupDate, Bill.BillType billType, Long departmentId, String paymentMethod) {
+        this.rollupDate = rollupDate;
+        this.billType = billType;
+        this.departmentId = departmentId;
+        this.paymentMethod = paymentMethod;
+    }
+
+    public LocalDate getRollupDate() { return rollupDate; }
+    public Bill.BillType getBillType() { return billType; }
+    public Long getDepartmentId() { return departmentId; }
+    public String getPaymentMethod() { return paymentMethod; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RevenueRollupKey other)) return false;
+        return Objects.equals(rollupDate, other.rollupDate) && billType == other.billType
+                && Objects.equals(departmentId, other.departmentId) && Objects.equals(paymentMethod, other.paymentMethod);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(rollupDate, billType, departmentId, paymentMethod);
+    }
+}
@@ -1,17 +1,26 @@
 package com.hms.repository;
 
+import com.hms.dto.AppointmentSlot;
+import com.hms.dto.AppointmentSummary;
+import com.hms.dto.AppointmentView;
+import com.hms.dto.DoctorAppointmentView;
+import com.hms.dto.UninvoicedAppointment;
 import com.hms.entity.Appointment;
 import com.hms.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
@@ -31,12 +40,33 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     
     List<Appointment> findByAppointmentDateAndStatus(LocalDate date, Appointment.AppointmentStatus status);
     
-    @Query("SELECT a FROM Appointment a WHERE a.patient.id = :patientId AND a.status != 'CANCELLED' ORDER BY a.appointmentDate DESC")
-    List<Appointment> findRecentAppointmentsByPatientId(@Param("patientId") Long patientId);
+    // Patient-facing projections: one joined SELECT, no entity graph
+    @Query("SELECT new com.hms.dto.AppointmentView(a.id, a.appointmentDate, a.appointmentTime, a.durationMinutes, a.status, " +
+           "a.reason, a.isEmergency, d.id, CONCAT(d.firstName, ' ', d.lastName), dep.departmentName) " +
+           "FROM Appointment a JOIN a.doctor d LEFT JOIN a.department dep WHERE a.patient.id = :patientId AND a.status != 'CANCELLED' " +
+           "ORDER BY a.appointmentDate DESC, a.appointmentTime DESC LIMIT :limit")
+    List<AppointmentView> findRecentAppointmentViews(@Param("patientId") Long patientId, @Param("limit") int limit);
+    
+    @Query(value = "SELECT new com.hms.dto.AppointmentView(a.id, a.appointmentDate, a.appointmentTime, a.durationMinutes, a.status, " +
+           "a.reason, a.isEmergency, d.id, CONCAT(d.firstName, ' ', d.lastName), dep.departmentName) " +
+           "FROM Appointment a JOIN a.doctor d LEFT JOIN a.department dep WHERE a.patient.id = :patientId",
+           countQuery = "SELECT COUNT(a) FROM Appointment a WHERE a.patient.id = :patientId")
+    Page<AppointmentView> findPatientAppointmentViews(@Param("patientId") Long patientId, Pageable pageable);
     
     @Query("SELECT a FROM Appointment a WHERE a.doctor.id = :doctorId AND a.appointmentDate = :date ORDER BY a.appointmentTime")
     List<Appointment> findTodaysAppointments(@Param("doctorId") Long doctorId, @Param("date") LocalDate date);
     
+    @Query("SELECT new com.hms.dto.AppointmentSummary(a.id, p.id, CONCAT(u.firstName, ' ', u.lastName), a.appointmentTime, " +
+           "a.durationMinutes, a.status, a.isEmergency, a.reason) " +
+           "FROM Appointment a JOIN a.patient p JOIN p.user u " +
+           "WHERE a.doctor.id = :doctorId AND a.appointmentDate = :date ORDER BY a.appointmentTime, a.id")
+    List<AppointmentSummary> findDayView(@Param("doctorId") Long doctorId, @Param("date") LocalDate date);
+    
+    @Query("SELECT new com.hms.dto.AppointmentSummary(a.id, p.id, CONCAT(u.firstName, ' ', u.lastName), a.appointmentTime, " +
+           "a.durationMinutes, a.status, a.isEmergency, a.reason) " +
+           "FROM Appointment a JOIN a.patient p JOIN p.user u WHERE a.id = :id")
+    Optional<AppointmentSummary> findSummaryById(@Param("id") Long id);
+    
     @Query("SELECT a FROM Appointment a WHERE a.appointmentDate > :date AND a.status IN ('SCHEDULED', 'CONFIRMED')")
     List<Appointment> findUpcomingAppointments(@Param("date") LocalDate date);
     
@@ -57,12 +87,54 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
                                                   @Param("startTime") LocalDateTime startTime, 
                                                   @Param("endTime") LocalDateTime endTime);
     
+    @Query("SELECT new com.hms.dto.AppointmentSlot(a.doctor.id, a.appointmentDate, a.appointmentTime, a.durationMinutes) " +
+           "FROM Appointment a WHERE a.doctor.id = :doctorId AND a.appointmentDate = :date " +
+           "AND a.status NOT IN ('CANCELLED', 'NO_SHOW', 'RESCHEDULED')")
+    List<AppointmentSlot> findOccupiedSlots(@Param("doctorId") Long doctorId, @Param("date") LocalDate date);
+    
+    @Query("SELECT new com.hms.dto.AppointmentSlot(a.doctor.id, a.appointmentDate, a.appointmentTime, a.durationMinutes) " +
+           "FROM Appointment a WHERE a.doctor.id IN :doctorIds AND a.appointmentDate >= :startDate AND a.appointmentDate <= :endDate " +
+           "AND a.status NOT IN ('CANCELLED', 'NO_SHOW', 'RESCHEDULED')")
+    List<AppointmentSlot> findOccupiedSlotsForDoctors(@Param("doctorIds") Collection<Long> doctorIds,
+                                                      @Param("startDate") LocalDate startDate,
+                                                      @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT a.appointmentDate FROM Appointment a WHERE a.appointmentDate IN :dates AND a.appointmentTime = :time " +
+           "AND (a.doctor.id = :doctorId OR a.patient.id = :patientId) " +
+           "AND a.status NOT IN ('CANCELLED', 'NO_SHOW', 'RESCHEDULED')")
+    List<LocalDate> findTakenDatesAtTime(@Param("doctorId") Long doctorId, @Param("patientId") Long patientId,
+                                         @Param("dates") Collection<LocalDate> dates, @Param("time") LocalTime time);
+    
     @Query("SELECT a FROM Appointment a WHERE a.patient.id = :patientId AND a.appointmentDate >= :date")
     List<Appointment> findFutureAppointmentsByPatient(@Param("patientId") Long patientId, @Param("date") LocalDate date);
     
     @Query("SELECT a FROM Appointment a WHERE a.status = :status AND a.appointmentDate < :date")
     List<Appointment> findOverdueAppointments(@Param("status") Appointment.AppointmentStatus status, @Param("date") LocalDate date);
     
+    @Query("SELECT a.id FROM Appointment a WHERE a.status IN :statuses AND a.appointmentDate < :date AND a.id > :afterId ORDER BY a.id")
+    List<Long> findOverdueAppointmentIds(@Param("statuses") Collection<Appointment.AppointmentStatus> statuses,
+                                         @Param("date") LocalDate date,
+                                         @Param("afterId") Long afterId,
+                                         Pageable pageable);
+    
+    // Invoicing run: completed appointments without a consultation bill, keyset by id
+    @Query("SELECT new com.hms.dto.UninvoicedAppointment(a.id, a.patient.id, d.id, a.appointmentDate, a.reason, " +
+           "a.consultationFee, a.paidAmount) FROM Appointment a LEFT JOIN a.department d " +
+           "WHERE a.status = 'COMPLETED' AND a.consultationFee IS NOT NULL AND a.appointmentDate <= :date AND a.id > :afterId " +
+           "AND NOT EXISTS (SELECT 1 FROM Bill b WHERE b.appointment.id = a.id AND b.billType = 'CONSULTATION') " +
+           "ORDER BY a.id")
+    List<UninvoicedAppointment> findUninvoicedAppointments(@Param("date") LocalDate date,
+                                                           @Param("afterId") Long afterId,
+                                                           Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = :newStatus, a.updatedAt = :now, a.version = COALESCE(a.version, 0) + 1 " +
+           "WHERE a.id IN :ids AND a.status IN :statuses")
+    int updateStatusForIds(@Param("ids") Collection<Long> ids,
+                           @Param("statuses") Collection<Appointment.AppointmentStatus> statuses,
+                           @Param("newStatus") Appointment.AppointmentStatus newStatus,
+                           @Param("now") LocalDateTime now);
+    
     @Query("SELECT a FROM Appointment a WHERE a.isEmergency = true AND a.status IN ('SCHEDULED', 'CONFIRMED', 'IN_PROGRESS')")
     List<Appointment> findEmergencyAppointments();
     
@@ -71,4 +143,41 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     
     @Query("SELECT a FROM Appointment a WHERE a.doctor.id = :doctorId ORDER BY a.appointmentDate DESC, a.appointmentTime DESC")
     Page<Appointment> findDoctorAppointmentsByDoctorId(@Param("doctorId") Long doctorId, Pageable pageable);
+    
+    // Keyset pagination: (appointmentDate, appointmentTime, id) descending
+    @Query("SELECT new com.hms.dto.AppointmentView(a.id, a.appointmentDate, a.appointmentTime, a.durationMinutes, a.status, " +
+           "a.reason, a.isEmergency, d.id, CONCAT(d.firstName, ' ', d.lastName), dep.departmentName) " +
+           "FROM Appointment a JOIN a.doctor d LEFT JOIN a.department dep WHERE a.patient.id = :patientId " +
+           "ORDER BY a.appointmentDate DESC, a.appointmentTime DESC, a.id DESC")
+    List<AppointmentView> findPatientAppointmentsFirstPage(@Param("patientId") Long patientId, Pageable pageable);
+    
+    @Query("SELECT new com.hms.dto.AppointmentView(a.id, a.appointmentDate, a.appointmentTime, a.durationMinutes, a.status, " +
+           "a.reason, a.isEmergency, d.id, CONCAT(d.firstName, ' ', d.lastName), dep.departmentName) " +
+           "FROM Appointment a JOIN a.doctor d LEFT JOIN a.department dep WHERE a.patient.id = :patientId AND (a.appointmentDate < :date " +
+           "OR (a.appointmentDate = :date AND (a.appointmentTime < :time OR (a.appointmentTime = :time AND a.id < :id)))) " +
+           "ORDER BY a.appointmentDate DESC, a.appointmentTime DESC, a.id DESC")
+    List<AppointmentView> findPatientAppointmentsAfter(@Param("patientId") Long patientId, @Param("date") LocalDate date,
+                                                       @Param("time") LocalTime time, @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.patient.id = :patientId")
+    long countByPatientId(@Param("patientId") Long patientId);
+    
+    @Query("SELECT new com.hms.dto.DoctorAppointmentView(a.id, a.appointmentDate, a.appointmentTime, a.durationMinutes, " +
+           "a.status, a.reason, a.isEmergency, p.id, CONCAT(u.firstName, ' ', u.lastName), dep.departmentName) " +
+           "FROM Appointment a JOIN a.patient p JOIN p.user u LEFT JOIN a.department dep WHERE a.doctor.id = :doctorId " +
+           "ORDER BY a.appointmentDate DESC, a.appointmentTime DESC, a.id DESC")
+    List<DoctorAppointmentView> findDoctorAppointmentsFirstPage(@Param("doctorId") Long doctorId, Pageable pageable);
+    
+    @Query("SELECT new com.hms.dto.DoctorAppointmentView(a.id, a.appointmentDate, a.appointmentTime, a.durationMinutes, " +
+           "a.status, a.reason, a.isEmergency, p.id, CONCAT(u.firstName, ' ', u.lastName), dep.departmentName) " +
+           "FROM Appointment a JOIN a.patient p JOIN p.user u LEFT JOIN a.department dep WHERE a.doctor.id = :doctorId " +
+           "AND (a.appointmentDate < :date " +
+           "OR (a.appointmentDate = :date AND (a.appointmentTime < :time OR (a.appointmentTime = :time AND a.id < :id)))) " +
+           "ORDER BY a.appointmentDate DESC, a.appointmentTime DESC, a.id DESC")
+    List<DoctorAppointmentView> findDoctorAppointmentsAfter(@Param("doctorId") Long doctorId, @Param("date") LocalDate date,
+                                                            @Param("time") LocalTime time, @Param("id") Long id,
+                                                            Pageable pageable);
+    
+    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.doctor.id = :doctorId")
+    long countByDoctorId(@Param("doctorId") Long doctorId);
 }
\ No newline at end of file
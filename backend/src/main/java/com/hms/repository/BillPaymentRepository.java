@@ -0,0 +1,20 @@
+package com.hms.repository;
+
+import com.hms.entity.BillPayment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BillPaymentRepository extends JpaRepository<BillPayment, Long> {
+    
+    @Query("SELECT p FROM BillPayment p JOIN FETCH p.bill WHERE p.idempotencyKey = :idempotencyKey")
+    Optional<BillPayment> findByIdempotencyKey(@Param("idempotencyKey") String idempotencyKey);
+    
+    @Query("SELECT p FROM BillPayment p WHERE p.bill.id = :billId ORDER BY p.receivedAt, p.id")
+    List<BillPayment> findByBillId(@Param("billId") Long billId);
+}
@@ -1,5 +1,6 @@
 package com.hms.repository;
 
+import com.hms.dto.BillView;
 import com.hms.entity.Bill;
 import com.hms.entity.User;
 import org.springframework.data.domain.Page;
@@ -30,22 +31,34 @@ public interface BillRepository extends JpaRepository<Bill, Long> {
     @Query("SELECT b FROM Bill b WHERE b.patient.id = :patientId AND b.paymentStatus = :paymentStatus ORDER BY b.billDate DESC")
     List<Bill> findBillsByPatientAndStatus(@Param("patientId") Long patientId, @Param("paymentStatus") Bill.PaymentStatus paymentStatus);
     
-    @Query("SELECT b FROM Bill b WHERE b.dueDate < :date AND b.paymentStatus != 'PAID'")
+    // Loads the whole set; DunningJob streams it instead
+    @Query("SELECT b FROM Bill b WHERE b.dueDate < :date AND b.paymentStatus NOT IN ('PAID', 'CANCELLED')")
     List<Bill> findOverdueBills(@Param("date") LocalDate date);
     
-    @Query("SELECT SUM(b.finalAmount) FROM Bill b WHERE b.patient.id = :patientId AND b.paymentStatus != 'PAID'")
+    // Remaining, not billed, amounts; PatientBalanceLedger keeps the same figure incrementally
+    @Query("SELECT SUM(b.finalAmount - b.paidAmount) FROM Bill b WHERE b.patient.id = :patientId " +
+           "AND b.paymentStatus NOT IN ('PAID', 'CANCELLED') AND b.finalAmount > b.paidAmount")
     BigDecimal getTotalOutstandingAmount(@Param("patientId") Long patientId);
     
-    @Query("SELECT SUM(b.finalAmount) FROM Bill b WHERE b.billDate >= :startDate AND b.billDate <= :endDate")
-    BigDecimal getTotalBillsInPeriod(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
-    
-    @Query("SELECT SUM(b.paidAmount) FROM Bill b WHERE b.paymentDate >= :startDate AND b.paymentDate <= :endDate")
-    BigDecimal getTotalCollectionsInPeriod(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
-    
     @Query("SELECT b FROM Bill b WHERE (LOWER(b.itemName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
            "LOWER(b.itemDescription) LIKE LOWER(CONCAT('%', :search, '%'))) AND b.patient.id = :patientId")
     Page<Bill> searchBills(@Param("patientId") Long patientId, @Param("search") String search, Pageable pageable);
     
+    // Loads the whole set; ClaimExportJob streams claimable bills instead
     @Query("SELECT b FROM Bill b WHERE b.isInsuranceCovered = true AND b.paymentStatus = 'PENDING'")
     List<Bill> findPendingInsuranceBills();
+    
+    // Keyset pagination: (billDate, id) descending
+    @Query("SELECT new com.hms.dto.BillView(b.id, b.billNumber, b.billDate, b.dueDate, b.billType, b.itemName, " +
+           "b.finalAmount, b.paidAmount, b.status, b.paymentStatus) FROM Bill b WHERE b.patient.id = :patientId ORDER BY b.billDate DESC, b.id DESC")
+    List<BillView> findPatientBillsFirstPage(@Param("patientId") Long patientId, Pageable pageable);
+    
+    @Query("SELECT new com.hms.dto.BillView(b.id, b.billNumber, b.billDate, b.dueDate, b.billType, b.itemName, " +
+           "b.finalAmount, b.paidAmount, b.status, b.paymentStatus) FROM Bill b WHERE b.patient.id = :patientId AND (b.billDate < :date " +
+           "OR (b.billDate = :date AND b.id < :id)) ORDER BY b.billDate DESC, b.id DESC")
+    List<BillView> findPatientBillsAfter(@Param("patientId") Long patientId, @Param("date") LocalDate date,
+            @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT COUNT(b) FROM Bill b WHERE b.patient.id = :patientId")
+    long countByPatientId(@Param("patientId") Long patientId);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.hms.repository;
 
+import com.hms.dto.MedicalRecordView;
 import com.hms.entity.MedicalRecord;
 import com.hms.entity.User;
 import org.springframework.data.domain.Page;
@@ -43,4 +44,26 @@ public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Lo
     
     @Query("SELECT mr FROM MedicalRecord mr WHERE mr.patient.id = :patientId AND mr.recordDate <= :date ORDER BY mr.recordDate DESC LIMIT :limit")
     List<MedicalRecord> findLatestRecordsByPatient(@Param("patientId") Long patientId, @Param("date") LocalDate date, @Param("limit") int limit);
+    
+    @Query("SELECT new com.hms.dto.MedicalRecordView(mr.id, mr.recordDate, mr.recordType, mr.chiefComplaint, mr.assessment, " +
+           "mr.plan, mr.followUpInstructions, mr.nextAppointmentDate, d.id, CONCAT(d.firstName, ' ', d.lastName)) " +
+           "FROM MedicalRecord mr JOIN mr.doctor d WHERE mr.patient.id = :patientId AND mr.recordDate <= :date " +
+           "ORDER BY mr.recordDate DESC, mr.id DESC LIMIT :limit")
+    List<MedicalRecordView> findLatestRecordViews(@Param("patientId") Long patientId, @Param("date") LocalDate date, @Param("limit") int limit);
+    
+    // Keyset pagination: (recordDate, id) descending
+    @Query("SELECT new com.hms.dto.MedicalRecordView(mr.id, mr.recordDate, mr.recordType, mr.chiefComplaint, mr.assessment, " +
+           "mr.plan, mr.followUpInstructions, mr.nextAppointmentDate, d.id, CONCAT(d.firstName, ' ', d.lastName)) " +
+           "FROM MedicalRecord mr JOIN mr.doctor d WHERE mr.patient.id = :patientId ORDER BY mr.recordDate DESC, mr.id DESC")
+    List<MedicalRecordView> findPatientMedicalRecordsFirstPage(@Param("patientId") Long patientId, Pageable pageable);
+    
+    @Query("SELECT new com.hms.dto.MedicalRecordView(mr.id, mr.recordDate, mr.recordType, mr.chiefComplaint, mr.assessment, " +
+           "mr.plan, mr.followUpInstructions, mr.nextAppointmentDate, d.id, CONCAT(d.firstName, ' ', d.lastName)) " +
+           "FROM MedicalRecord mr JOIN mr.doctor d WHERE mr.patient.id = :patientId AND (mr.recordDate < :date " +
+           "OR (mr.recordDate = :date AND mr.id < :id)) ORDER BY mr.recordDate DESC, mr.id DESC")
+    List<MedicalRecordView> findPatientMedicalRecordsAfter(@Param("patientId") Long patientId, @Param("date") LocalDate date,
+            @Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT COUNT(mr) FROM MedicalRecord mr WHERE mr.patient.id = :patientId")
+    long countByPatientId(@Param("patientId") Long patientId);
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.hms.repository;
+
+import com.hms.entity.PatientBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+@Repository
+public interface PatientBalanceRepository extends JpaRepository<PatientBalance, Long> {
+    
+    @Query("SELECT pb.outstandingAmount FROM PatientBalance pb WHERE pb.patientId = :patientId")
+    BigDecimal findOutstandingAmount(@Param("patientId") Long patientId);
+}
@@ -1,5 +1,7 @@
 package com.hms.repository;
 
+import com.hms.dto.MedicationCount;
+import com.hms.dto.PrescriptionView;
 import com.hms.entity.Prescription;
 import com.hms.entity.User;
 import org.springframework.data.domain.Page;
@@ -33,6 +35,12 @@ public interface PrescriptionRepository extends JpaRepository<Prescription, Long
     @Query("SELECT p FROM Prescription p WHERE p.patient.id = :patientId ORDER BY p.prescriptionDate DESC")
     Page<Prescription> findPrescriptionsByPatientId(@Param("patientId") Long patientId, Pageable pageable);
 
+    @Query("SELECT new com.hms.dto.PrescriptionView(p.id, p.prescriptionDate, p.medicationName, p.dosage, p.frequency, " +
+           "p.durationDays, p.instructions, p.startDate, p.endDate, p.refillsAllowed, p.refillsUsed, p.status, " +
+           "CONCAT(d.firstName, ' ', d.lastName)) FROM Prescription p JOIN p.doctor d WHERE p.patient.id = :patientId " +
+           "ORDER BY p.prescriptionDate DESC, p.id DESC LIMIT :limit")
+    List<PrescriptionView> findRecentPrescriptionViews(@Param("patientId") Long patientId, @Param("limit") int limit);
+
     @Query("SELECT p FROM Prescription p WHERE p.doctor.id = :doctorId AND p.prescriptionDate = :date")
     List<Prescription> findTodaysPrescriptionsByDoctor(@Param("doctorId") Long doctorId, @Param("date") LocalDate date);
 
@@ -49,5 +57,23 @@ public interface PrescriptionRepository extends JpaRepository<Prescription, Long
     @Query("SELECT p FROM Prescription p WHERE p.isEmergency = true AND p.status IN ('PRESCRIBED', 'DISPENSED')")
     List<Prescription> findEmergencyPrescriptions();
 
-}
+    @Query("SELECT new com.hms.dto.MedicationCount(p.medicationName, p.genericName, COUNT(p)) FROM Prescription p " +
+           "GROUP BY p.medicationName, p.genericName")
+    List<MedicationCount> countByMedicationAndGenericName();
+
+    // Keyset pagination: (prescriptionDate, id) descending
+    @Query("SELECT new com.hms.dto.PrescriptionView(p.id, p.prescriptionDate, p.medicationName, p.dosage, p.frequency, " +
+           "p.durationDays, p.instructions, p.startDate, p.endDate, p.refillsAllowed, p.refillsUsed, p.status, " +
+           "CONCAT(d.firstName, ' ', d.lastName)) FROM Prescription p JOIN p.doctor d WHERE p.patient.id = :patientId ORDER BY p.prescriptionDate DESC, p.id DESC")
+    List<PrescriptionView> findPatientPrescriptionsFirstPage(@Param("patientId") Long patientId, Pageable pageable);
+
+    @Query("SELECT new com.hms.dto.PrescriptionView(p.id, p.prescriptionDate, p.medicationName, p.dosage, p.frequency, " +
+           "p.durationDays, p.instructions, p.startDate, p.endDate, p.refillsAllowed, p.refillsUsed, p.status, " +
+           "CONCAT(d.firstName, ' ', d.lastName)) FROM Prescription p JOIN p.doctor d WHERE p.patient.id = :patientId AND (p.prescriptionDate < :date " +
+           "OR (p.prescriptionDate = :date AND p.id < :id)) ORDER BY p.prescriptionDate DESC, p.id DESC")
+    List<PrescriptionView> findPatientPrescriptionsAfter(@Param("patientId") Long patientId, @Param("date") LocalDate date,
+            @Param("id") Long id, Pageable pageable);
 
+    @Query("SELECT COUNT(p) FROM Prescription p WHERE p.patient.id = :patientId")
+    long countByPatientId(@Param("patientId") Long patientId);
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.hms.repository;
+
+import com.hms.dto.RevenueBreakdown;
+import com.hms.entity.RevenueDailyRollup;
+import com.hms.entity.RevenueRollupKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RevenueDailyRollupRepository extends JpaRepository<RevenueDailyRollup, RevenueRollupKey> {
+    
+    @Query("SELECT COALESCE(SUM(r.billedAmount), 0) FROM RevenueDailyRollup r WHERE r.id.rollupDate >= :startDate AND r.id.rollupDate <= :endDate")
+    BigDecimal sumBilledAmount(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT COALESCE(SUM(r.collectedAmount), 0) FROM RevenueDailyRollup r WHERE r.id.rollupDate >= :startDate AND r.id.rollupDate <= :endDate")
+    BigDecimal sumCollectedAmount(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT new com.hms.dto.RevenueBreakdown(r.id.billType, r.id.departmentId, r.id.paymentMethod, " +
+           "SUM(r.billedAmount), SUM(r.billCount), SUM(r.collectedAmount)) FROM RevenueDailyRollup r " +
+           "WHERE r.id.rollupDate >= :startDate AND r.id.rollupDate <= :endDate " +
+           "GROUP BY r.id.billType, r.id.departmentId, r.id.paymentMethod " +
+           "ORDER BY r.id.billType, r.id.departmentId, r.id.paymentMethod")
+    List<RevenueBreakdown> findBreakdown(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
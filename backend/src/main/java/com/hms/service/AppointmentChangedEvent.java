@@ -0,0 +1,27 @@
+package com.hms.service;
+
+import com.hms.entity.Appointment;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Published by {@link AppointmentService} when an appointment changes state. Carries a
+ * snapshot of plain values so listeners running after commit never touch lazy associations.
+ */
+public record AppointmentChangedEvent(Long appointmentId, Long doctorId, Long patientId, LocalDate date,
+                                      LocalTime time, int durationMinutes, Appointment.AppointmentStatus status,
+                                      boolean emergency) {
+
+    static AppointmentChangedEvent of(Appointment appointment, int durationMinutes) {
+        return new AppointmentChangedEvent(
+                appointment.getId(),
+                appointment.getDoctor().getId(),
+                appointment.getPatient().getId(),
+                appointment.getAppointmentDate(),
+                appointment.getAppointmentTime(),
+                durationMinutes,
+                appointment.getStatus(),
+                Boolean.TRUE.equals(appointment.getIsEmergency()));
+    }
+}
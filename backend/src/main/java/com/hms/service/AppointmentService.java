@@ -1,32 +1,69 @@
 package com.hms.service;
 
+import com.hms.dto.AppointmentSummary;
+import com.hms.dto.AppointmentView;
+import com.hms.dto.CursorPage;
+import com.hms.dto.DoctorAppointmentView;
+import com.hms.dto.FreeSlot;
+import com.hms.dto.KeysetCursor;
+import com.hms.dto.SeriesBookingResult;
 import com.hms.entity.Appointment;
 import com.hms.entity.Patient;
 import com.hms.entity.User;
 import com.hms.repository.AppointmentRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class AppointmentService {
     
+    static final int DEFAULT_DURATION_MINUTES = 30;
+    static final int MAX_SEARCH_DAYS = 31;
+    static final int MAX_SERIES_OCCURRENCES = 60;
+    
     private static final Logger log = LoggerFactory.getLogger(AppointmentService.class);
     private final AppointmentRepository appointmentRepository;
     private final UserService userService;
+    private final DoctorScheduleIndex scheduleIndex;
+    private final BookingLockManager bookingLocks;
+    private final DoctorDayViewCache dayViewCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int workingDayStartMinute;
+    private final int workingDayEndMinute;
 
-    public AppointmentService(AppointmentRepository appointmentRepository, UserService userService) {
+    public AppointmentService(AppointmentRepository appointmentRepository, UserService userService,
+                              DoctorScheduleIndex scheduleIndex, BookingLockManager bookingLocks,
+                              DoctorDayViewCache dayViewCache, ApplicationEventPublisher eventPublisher,
+                              @Value("${hms.scheduling.working-hours.start:09:00}") String workingDayStart,
+                              @Value("${hms.scheduling.working-hours.end:17:00}") String workingDayEnd) {
         this.appointmentRepository = appointmentRepository;
         this.userService = userService;
+        this.scheduleIndex = scheduleIndex;
+        this.bookingLocks = bookingLocks;
+        this.dayViewCache = dayViewCache;
+        this.eventPublisher = eventPublisher;
+        this.workingDayStartMinute = LocalTime.parse(workingDayStart).toSecondOfDay() / 60;
+        this.workingDayEndMinute = LocalTime.parse(workingDayEnd).toSecondOfDay() / 60;
     }
     
     @Transactional(readOnly = true)
@@ -40,15 +77,13 @@ public class AppointmentService {
     }
     
     @Transactional(readOnly = true)
-    public List<Appointment> getRecentAppointmentsForPatient(Long patientId, int limit) {
-        return appointmentRepository.findRecentAppointmentsByPatientId(patientId).stream()
-                .limit(limit)
-                .toList();
+    public List<AppointmentView> getRecentAppointmentsForPatient(Long patientId, int limit) {
+        return appointmentRepository.findRecentAppointmentViews(patientId, limit);
     }
     
     @Transactional(readOnly = true)
-    public Page<Appointment> getAppointmentsForPatient(Long patientId, Pageable pageable) {
-        return appointmentRepository.findPatientAppointmentsByPatientId(patientId, pageable);
+    public Page<AppointmentView> getAppointmentsForPatient(Long patientId, Pageable pageable) {
+        return appointmentRepository.findPatientAppointmentViews(patientId, pageable);
     }
     
     @Transactional(readOnly = true)
@@ -56,9 +91,49 @@ public class AppointmentService {
         return appointmentRepository.findDoctorAppointmentsByDoctorId(doctorId, pageable);
     }
     
+    /**
+     * Keyset variant of {@link #getAppointmentsForPatient}: seeks past the cursor instead of
+     * using OFFSET, and only counts when {@code includeTotal} is set.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentView> scrollAppointmentsForPatient(Long patientId, String cursor, int size, boolean includeTotal) {
+        Pageable limit = PageRequest.ofSize(size + 1);
+        List<AppointmentView> rows;
+        if (cursor == null) {
+            rows = appointmentRepository.findPatientAppointmentsFirstPage(patientId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = appointmentRepository.findPatientAppointmentsAfter(patientId, after.date(), after.time(), after.id(), limit);
+        }
+        Long total = includeTotal ? appointmentRepository.countByPatientId(patientId) : null;
+        return CursorPage.of(rows, size,
+                view -> new KeysetCursor(view.appointmentDate(), view.appointmentTime(), view.id()), total);
+    }
+    
+    /**
+     * Keyset listing of a doctor's appointments, newest first, as flat rows with the patient's name.
+     */
     @Transactional(readOnly = true)
-    public List<Appointment> getTodaysAppointmentsForDoctor(Long doctorId) {
-        return appointmentRepository.findTodaysAppointments(doctorId, LocalDate.now());
+    public CursorPage<DoctorAppointmentView> scrollAppointmentsForDoctor(Long doctorId, String cursor, int size,
+                                                                         boolean includeTotal) {
+        Pageable limit = PageRequest.ofSize(size + 1);
+        List<DoctorAppointmentView> rows;
+        if (cursor == null) {
+            rows = appointmentRepository.findDoctorAppointmentsFirstPage(doctorId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = appointmentRepository.findDoctorAppointmentsAfter(doctorId, after.date(), after.time(), after.id(), limit);
+        }
+        Long total = includeTotal ? appointmentRepository.countByDoctorId(doctorId) : null;
+        return CursorPage.of(rows, size,
+                view -> new KeysetCursor(view.appointmentDate(), view.appointmentTime(), view.id()), total);
+    }
+    
+    /**
+     * Served from {@link DoctorDayViewCache}; only the first read of a day hits the database.
+     */
+    public List<AppointmentSummary> getTodaysAppointmentsForDoctor(Long doctorId) {
+        return dayViewCache.getDayView(doctorId, LocalDate.now());
     }
     
     @Transactional
@@ -66,34 +141,111 @@ public class AppointmentService {
                                      String appointmentTimeStr, String reason, String notes) {
         
         LocalTime appointmentTime = LocalTime.parse(appointmentTimeStr);
-        LocalDateTime appointmentDateTime = LocalDateTime.of(appointmentDate, appointmentTime);
-        
-        // Check for conflicts
-        LocalDateTime endDateTime = appointmentDateTime.plusMinutes(30); // Assuming 30 min appointments
-        List<Appointment> conflicts = appointmentRepository.findConflictingAppointments(
-                doctor.getId(), appointmentDate, appointmentDateTime, endDateTime);
         
-        if (!conflicts.isEmpty()) {
-            throw new RuntimeException("Doctor is not available at the selected time");
+        // Serialize bookings of this doctor-day until commit
+        bookingLocks.lockForTransaction(doctor.getId(), appointmentDate);
+        if (bookingLocks.isDistributed()) {
+            // Another node may have booked since this node loaded the day
+            scheduleIndex.invalidate(doctor.getId(), appointmentDate);
         }
         
-        // Check doctor availability
-        if (!isDoctorAvailable(doctor, appointmentDate, appointmentTime)) {
-            throw new RuntimeException("Doctor is not available on the selected date");
+        // Check and claim the slot in the schedule index; uk_doctor_time still guards the insert
+        if (!scheduleIndex.tryReserve(doctor.getId(), appointmentDate, appointmentTime, DEFAULT_DURATION_MINUTES)) {
+            throw new SlotUnavailableException("Doctor is not available at the selected time", doctor.getId(), appointmentDate);
         }
+        releaseOnRollback(doctor.getId(), appointmentDate, appointmentTime, DEFAULT_DURATION_MINUTES);
         
         Appointment appointment = new Appointment();
         appointment.setPatient(patient);
         appointment.setDoctor(doctor);
         appointment.setAppointmentDate(appointmentDate);
         appointment.setAppointmentTime(appointmentTime);
-        appointment.setDurationMinutes(30);
+        appointment.setDurationMinutes(DEFAULT_DURATION_MINUTES);
         appointment.setStatus(Appointment.AppointmentStatus.SCHEDULED);
         appointment.setReason(reason);
         appointment.setNotes(notes);
         appointment.setIsEmergency(false);
         
-        return appointmentRepository.save(appointment);
+        Appointment saved;
+        try {
+            saved = appointmentRepository.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException e) {
+            throw translateSlotConflict(e, doctor.getId(), appointmentDate);
+        }
+        eventPublisher.publishEvent(AppointmentChangedEvent.of(saved, DEFAULT_DURATION_MINUTES));
+        return saved;
+    }
+    
+    /**
+     * Books a recurring series (e.g. physiotherapy or dialysis) at the same time every
+     * {@code intervalDays}. The whole series is validated against the schedule at once and
+     * inserted as one JDBC batch. With {@code allOrNothing} a single unavailable date rejects the
+     * series; otherwise the free dates are booked and the rest are reported back.
+     */
+    @Transactional
+    public SeriesBookingResult bookAppointmentSeries(Patient patient, User doctor, LocalDate startDate, int intervalDays,
+                                                     int occurrences, String appointmentTimeStr, String reason,
+                                                     String notes, boolean allOrNothing) {
+        if (occurrences < 1 || occurrences > MAX_SERIES_OCCURRENCES) {
+            throw new IllegalArgumentException("A series must have between 1 and " + MAX_SERIES_OCCURRENCES + " appointments");
+        }
+        if (intervalDays < 1) {
+            throw new IllegalArgumentException("Series interval must be at least one day");
+        }
+        LocalTime appointmentTime = LocalTime.parse(appointmentTimeStr);
+        List<LocalDate> dates = new ArrayList<>(occurrences);
+        for (int i = 0; i < occurrences; i++) {
+            dates.add(startDate.plusDays((long) i * intervalDays));
+        }
+        
+        bookingLocks.lockAllForTransaction(doctor.getId(), dates);
+        if (bookingLocks.isDistributed()) {
+            dates.forEach(date -> scheduleIndex.invalidate(doctor.getId(), date));
+        }
+        scheduleIndex.preload(List.of(doctor.getId()), dates.get(0), dates.get(dates.size() - 1));
+        
+        // The patient's own appointments at this time (with any doctor) would trip uk_patient_time
+        Set<LocalDate> taken = new HashSet<>(appointmentRepository.findTakenDatesAtTime(
+                doctor.getId(), patient.getId(), dates, appointmentTime));
+        
+        List<Appointment> appointments = new ArrayList<>(occurrences);
+        List<LocalDate> unavailableDates = new ArrayList<>();
+        for (LocalDate date : dates) {
+            if (taken.contains(date)
+                    || !scheduleIndex.tryReserve(doctor.getId(), date, appointmentTime, DEFAULT_DURATION_MINUTES)) {
+                unavailableDates.add(date);
+                continue;
+            }
+            releaseOnRollback(doctor.getId(), date, appointmentTime, DEFAULT_DURATION_MINUTES);
+            
+            Appointment appointment = new Appointment();
+            appointment.setPatient(patient);
+            appointment.setDoctor(doctor);
+            appointment.setAppointmentDate(date);
+            appointment.setAppointmentTime(appointmentTime);
+            appointment.setDurationMinutes(DEFAULT_DURATION_MINUTES);
+            appointment.setStatus(Appointment.AppointmentStatus.SCHEDULED);
+            appointment.setReason(reason);
+            appointment.setNotes(notes);
+            appointment.setIsEmergency(false);
+            appointments.add(appointment);
+        }
+        
+        if (allOrNothing && !unavailableDates.isEmpty()) {
+            throw new SlotUnavailableException("Doctor is not available on " + unavailableDates, doctor.getId(),
+                    unavailableDates.get(0));
+        }
+        
+        // Sequence ids let Hibernate send the whole series as one JDBC batch
+        List<Appointment> booked;
+        try {
+            booked = appointmentRepository.saveAllAndFlush(appointments);
+        } catch (DataIntegrityViolationException e) {
+            throw translateSlotConflict(e, doctor.getId(), dates.get(0));
+        }
+        booked.forEach(appointment -> eventPublisher.publishEvent(AppointmentChangedEvent.of(appointment, DEFAULT_DURATION_MINUTES)));
+        log.info("Booked {} of {} series appointments with doctor {}", booked.size(), occurrences, doctor.getId());
+        return new SeriesBookingResult(booked.stream().map(AppointmentView::from).toList(), unavailableDates);
     }
     
     @Transactional
@@ -101,7 +253,9 @@ public class AppointmentService {
         return appointmentRepository.findById(appointmentId)
                 .map(appointment -> {
                     appointment.setStatus(Appointment.AppointmentStatus.CONFIRMED);
-                    return appointmentRepository.save(appointment);
+                    Appointment saved = appointmentRepository.save(appointment);
+                    eventPublisher.publishEvent(AppointmentChangedEvent.of(saved, durationOf(saved)));
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Appointment not found"));
     }
@@ -116,7 +270,14 @@ public class AppointmentService {
                     appointment.setStatus(Appointment.AppointmentStatus.CANCELLED);
                     appointment.setCancellationReason(cancellationReason);
                     appointment.setCancellationDate(LocalDateTime.now());
-                    return appointmentRepository.save(appointment);
+                    Appointment saved = appointmentRepository.save(appointment);
+                    Long doctorId = saved.getDoctor().getId();
+                    int durationMinutes = durationOf(saved);
+                    afterCommit(() -> scheduleIndex.release(doctorId, saved.getAppointmentDate(),
+                            saved.getAppointmentTime(), durationMinutes));
+                    // Published after the release is registered, so after-commit listeners see the freed slot
+                    eventPublisher.publishEvent(AppointmentChangedEvent.of(saved, durationMinutes));
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Appointment not found"));
     }
@@ -125,9 +286,19 @@ public class AppointmentService {
     public Appointment completeAppointment(Long appointmentId) {
         return appointmentRepository.findById(appointmentId)
                 .map(appointment -> {
+                    LocalDateTime now = LocalDateTime.now();
                     appointment.setStatus(Appointment.AppointmentStatus.COMPLETED);
-                    appointment.setActualVisitTime(LocalDateTime.now());
-                    return appointmentRepository.save(appointment);
+                    appointment.setActualVisitTime(now);
+                    Appointment saved = appointmentRepository.save(appointment);
+                    int durationMinutes = durationOf(saved);
+                    // A visit that finishes early hands the rest of its slot back to the schedule
+                    if (now.toLocalDate().equals(saved.getAppointmentDate())) {
+                        Long doctorId = saved.getDoctor().getId();
+                        afterCommit(() -> scheduleIndex.releaseRemainder(doctorId, saved.getAppointmentDate(),
+                                saved.getAppointmentTime(), durationMinutes, now.toLocalTime()));
+                    }
+                    eventPublisher.publishEvent(AppointmentChangedEvent.of(saved, durationMinutes));
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Appointment not found"));
     }
@@ -138,28 +309,100 @@ public class AppointmentService {
                 .map(appointment -> {
                     appointment.setStatus(Appointment.AppointmentStatus.IN_PROGRESS);
                     appointment.setActualVisitTime(LocalDateTime.now());
-                    return appointmentRepository.save(appointment);
+                    Appointment saved = appointmentRepository.save(appointment);
+                    eventPublisher.publishEvent(AppointmentChangedEvent.of(saved, durationOf(saved)));
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Appointment not found"));
     }
     
     @Transactional(readOnly = true)
     public boolean isDoctorAvailable(User doctor, LocalDate date, LocalTime time) {
-        // Check for existing appointments at the same time
-        List<Appointment> existingAppointments = appointmentRepository
-                .findAppointmentsByDoctorAndDateRange(doctor.getId(), date, date);
-        
-        LocalDateTime requestedTime = LocalDateTime.of(date, time);
-        LocalDateTime endTime = requestedTime.plusMinutes(30);
+        return scheduleIndex.isAvailable(doctor.getId(), date, time, DEFAULT_DURATION_MINUTES);
+    }
+    
+    /**
+     * Earliest free slots across every active doctor of a specialization, in date/time order.
+     * Occupancy for all doctors is loaded with one query and then scanned in memory.
+     */
+    @Transactional(readOnly = true)
+    public List<FreeSlot> findEarliestFreeSlots(String specialization, LocalDate fromDate, int days, int limit) {
+        return findEarliestFreeSlots(userService.findDoctorsBySpecialization(specialization), fromDate, days, limit);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<FreeSlot> findEarliestFreeSlots(List<User> doctors, LocalDate fromDate, int days, int limit) {
+        if (doctors.isEmpty() || limit <= 0 || days <= 0) {
+            return List.of();
+        }
+        LocalDate toDate = fromDate.plusDays(Math.min(days, MAX_SEARCH_DAYS) - 1);
+        scheduleIndex.preload(doctors.stream().map(User::getId).toList(), fromDate, toDate);
         
-        return existingAppointments.stream()
-                .noneMatch(apt -> isTimeConflict(requestedTime, endTime, 
-                        LocalDateTime.of(apt.getAppointmentDate(), apt.getAppointmentTime()),
-                        LocalDateTime.of(apt.getAppointmentDate(), apt.getAppointmentTime()).plusMinutes(apt.getDurationMinutes())));
+        LocalDateTime now = LocalDateTime.now();
+        List<FreeSlot> slots = new ArrayList<>(limit);
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            for (int minute = workingDayStartMinute; minute + DEFAULT_DURATION_MINUTES <= workingDayEndMinute;
+                 minute += DEFAULT_DURATION_MINUTES) {
+                LocalTime time = LocalTime.of(minute / 60, minute % 60);
+                if (!LocalDateTime.of(date, time).isAfter(now)) {
+                    continue;
+                }
+                for (User doctor : doctors) {
+                    if (scheduleIndex.isAvailable(doctor.getId(), date, time, DEFAULT_DURATION_MINUTES)) {
+                        slots.add(new FreeSlot(doctor.getId(), doctor.getFullName(), doctor.getSpecialization(),
+                                date, time, DEFAULT_DURATION_MINUTES));
+                        if (slots.size() == limit) {
+                            return slots;
+                        }
+                    }
+                }
+            }
+        }
+        return slots;
+    }
+    
+    private RuntimeException translateSlotConflict(DataIntegrityViolationException e, Long doctorId, LocalDate date) {
+        String detail = String.valueOf(e.getMostSpecificCause().getMessage());
+        if (detail.contains("uk_patient_time")) {
+            return new SlotUnavailableException("You already have an appointment at the selected time", doctorId, date);
+        }
+        if (detail.contains("uk_doctor_time")) {
+            log.debug("Schedule index missed a booking of doctor {} on {}, reloading", doctorId, date);
+            scheduleIndex.invalidate(doctorId, date);
+            return new SlotUnavailableException("Doctor is not available at the selected time", doctorId, date);
+        }
+        return e;
     }
     
-    private boolean isTimeConflict(LocalDateTime start1, LocalDateTime end1, LocalDateTime start2, LocalDateTime end2) {
-        return start1.isBefore(end2) && end1.isAfter(start2);
+    static int durationOf(Appointment appointment) {
+        return appointment.getDurationMinutes() != null ? appointment.getDurationMinutes() : DEFAULT_DURATION_MINUTES;
+    }
+    
+    private void releaseOnRollback(Long doctorId, LocalDate date, LocalTime time, int durationMinutes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    scheduleIndex.release(doctorId, date, time, durationMinutes);
+                }
+            }
+        });
+    }
+    
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
     
     @Transactional(readOnly = true)
@@ -174,6 +417,22 @@ public class AppointmentService {
     
     @Transactional
     public void deleteAppointment(Long id) {
-        appointmentRepository.deleteById(id);
+        appointmentRepository.findById(id).ifPresent(appointment -> {
+            Long doctorId = appointment.getDoctor().getId();
+            LocalDate date = appointment.getAppointmentDate();
+            LocalTime time = appointment.getAppointmentTime();
+            int durationMinutes = durationOf(appointment);
+            boolean occupiesSlot = !EnumSet.of(Appointment.AppointmentStatus.CANCELLED,
+                    Appointment.AppointmentStatus.NO_SHOW, Appointment.AppointmentStatus.RESCHEDULED)
+                    .contains(appointment.getStatus());
+            appointmentRepository.delete(appointment);
+            // Deletions are not transitions, so drop the cached view of the day instead
+            afterCommit(() -> {
+                if (occupiesSlot) {
+                    scheduleIndex.release(doctorId, date, time, durationMinutes);
+                }
+                dayViewCache.invalidate(doctorId, date);
+            });
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.hms.service;
+
+import com.hms.dto.SweepReport;
+import com.hms.entity.Appointment;
+import com.hms.repository.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves SCHEDULED / CONFIRMED appointments whose date has passed to NO_SHOW.
+ *
+ * Work is done in fixed-size chunks: each chunk selects the next ids after the checkpoint
+ * and flips them with one bulk UPDATE in its own short transaction, so a large backlog is
+ * never loaded into the heap or held in one long transaction. Updated rows drop out of the
+ * overdue predicate, so a run interrupted by a restart simply resumes on the next run.
+ */
+@Component
+public class AppointmentSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentSweeper.class);
+    private static final List<Appointment.AppointmentStatus> STALE_STATUSES =
+            List.of(Appointment.AppointmentStatus.SCHEDULED, Appointment.AppointmentStatus.CONFIRMED);
+
+    private final AppointmentRepository appointmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int graceDays;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile SweepReport lastReport;
+
+    public AppointmentSweeper(AppointmentRepository appointmentRepository, TransactionTemplate transactionTemplate,
+                              @Value("${hms.appointments.sweeper.chunk-size:1000}") int chunkSize,
+                              @Value("${hms.appointments.sweeper.grace-days:0}") int graceDays) {
+        this.appointmentRepository = appointmentRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.graceDays = graceDays;
+    }
+
+    @Scheduled(fixedDelayString = "${hms.appointments.sweeper.interval:PT15M}",
+               initialDelayString = "${hms.appointments.sweeper.initial-delay:PT1M}")
+    public void scheduledSweep() {
+        sweep();
+    }
+
+    /**
+     * Runs one sweep unless another one is in progress, in which case the last report is returned.
+     */
+    public SweepReport sweep() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Appointment sweep already running, skipping");
+            return lastReport;
+        }
+        try {
+            LocalDate cutoff = LocalDate.now().minusDays(graceDays);
+            LocalDateTime startedAt = LocalDateTime.now();
+            long checkpoint = 0L;
+            long processed = 0L;
+            long totalMillis = 0L;
+            long maxChunkMillis = 0L;
+            int chunks = 0;
+
+            while (true) {
+                long chunkStart = System.nanoTime();
+                long afterId = checkpoint;
+                List<Long> ids = transactionTemplate.execute(status -> {
+                    List<Long> chunk = appointmentRepository.findOverdueAppointmentIds(
+                            STALE_STATUSES, cutoff, afterId, PageRequest.ofSize(chunkSize));
+                    if (!chunk.isEmpty()) {
+                        appointmentRepository.updateStatusForIds(chunk, STALE_STATUSES,
+                                Appointment.AppointmentStatus.NO_SHOW, LocalDateTime.now());
+                    }
+                    return chunk;
+                });
+                if (ids == null || ids.isEmpty()) {
+                    break;
+                }
+
+                long chunkMillis = (System.nanoTime() - chunkStart) / 1_000_000;
+                checkpoint = ids.get(ids.size() - 1);
+                processed += ids.size();
+                totalMillis += chunkMillis;
+                maxChunkMillis = Math.max(maxChunkMillis, chunkMillis);
+                chunks++;
+                log.debug("Appointment sweep chunk {}: {} rows in {} ms, checkpoint id {}", chunks, ids.size(), chunkMillis, checkpoint);
+
+                if (ids.size() < chunkSize) {
+                    break;
+                }
+            }
+
+            SweepReport report = new SweepReport(startedAt, LocalDateTime.now(), processed, chunks,
+                    chunks == 0 ? 0 : totalMillis / chunks, maxChunkMillis, checkpoint);
+            if (processed > 0) {
+                log.info("Appointment sweep marked {} overdue appointments NO_SHOW in {} chunks", processed, chunks);
+            }
+            lastReport = report;
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public SweepReport getLastReport() {
+        return lastReport;
+    }
+}
@@ -1,27 +1,63 @@
 package com.hms.service;
 
+import com.hms.dto.BillView;
+import com.hms.dto.CursorPage;
+import com.hms.dto.KeysetCursor;
+import com.hms.dto.PaymentReceipt;
 import com.hms.entity.Bill;
+import com.hms.entity.BillPayment;
+import com.hms.entity.Money;
+import com.hms.repository.BillPaymentRepository;
 import com.hms.repository.BillRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 @Service
 public class BillService {
     
     private static final Logger log = LoggerFactory.getLogger(BillService.class);
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
     private final BillRepository billRepository;
+    private final BillPaymentRepository billPaymentRepository;
+    private final PatientBalanceLedger balanceLedger;
+    private final RevenueRollupService revenueRollups;
+    private final TransactionTemplate transactionTemplate;
+    private final BusinessIdGenerator idGenerator;
+    private final int maxPaymentAttempts;
+    private final Duration paymentRetryBackoff;
 
-    public BillService(BillRepository billRepository) {
+    public BillService(BillRepository billRepository, BillPaymentRepository billPaymentRepository,
+                       PatientBalanceLedger balanceLedger, RevenueRollupService revenueRollups,
+                       TransactionTemplate transactionTemplate, BusinessIdGenerator idGenerator,
+                       @Value("${hms.billing.payments.max-attempts:5}") int maxPaymentAttempts,
+                       @Value("${hms.billing.payments.retry-backoff:PT0.02S}") Duration paymentRetryBackoff) {
         this.billRepository = billRepository;
+        this.billPaymentRepository = billPaymentRepository;
+        this.balanceLedger = balanceLedger;
+        this.revenueRollups = revenueRollups;
+        this.transactionTemplate = transactionTemplate;
+        this.idGenerator = idGenerator;
+        this.maxPaymentAttempts = maxPaymentAttempts;
+        this.paymentRetryBackoff = paymentRetryBackoff;
     }
     
     @Transactional(readOnly = true)
@@ -39,31 +75,114 @@ public class BillService {
         return billRepository.findBillsByPatientId(patientId, pageable);
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<BillView> scrollBillsForPatient(Long patientId, String cursor, int size, boolean includeTotal) {
+        Pageable limit = PageRequest.ofSize(size + 1);
+        List<BillView> rows;
+        if (cursor == null) {
+            rows = billRepository.findPatientBillsFirstPage(patientId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = billRepository.findPatientBillsAfter(patientId, after.date(), after.id(), limit);
+        }
+        Long total = includeTotal ? billRepository.countByPatientId(patientId) : null;
+        return CursorPage.of(rows, size, view -> new KeysetCursor(view.billDate(), null, view.id()), total);
+    }
+    
+    // Served from the balance ledger; empty until the patient's first bill is recorded
     @Transactional(readOnly = true)
     public Optional<BigDecimal> getOutstandingAmountForPatient(Long patientId) {
-        BigDecimal outstandingAmount = billRepository.getTotalOutstandingAmount(patientId);
+        BigDecimal outstandingAmount = balanceLedger.getOutstandingAmount(patientId);
         return Optional.ofNullable(outstandingAmount);
     }
     
     @Transactional
     public Bill createBill(Bill bill) {
-        return billRepository.save(bill);
+        if (bill.getBillNumber() == null) {
+            bill.setBillNumber(idGenerator.next(BusinessIdGenerator.Kind.BILL));
+        }
+        return applyChange(bill.getId(), () -> billRepository.save(bill));
     }
     
     @Transactional
     public Bill updateBill(Bill bill) {
-        return billRepository.save(bill);
+        return applyChange(bill.getId(), () -> billRepository.save(bill));
     }
     
     @Transactional
     public void deleteBill(Long id) {
-        billRepository.deleteById(id);
+        applyChange(id, () -> {
+            billRepository.deleteById(id);
+            return null;
+        });
     }
     
-    @Transactional
+    /**
+     * Posts a payment under a fresh idempotency key, so it is never deduplicated. Callers that
+     * may retry should use {@link #recordPayment} with a key of their own.
+     */
     public Bill addPayment(Long billId, BigDecimal amount, Bill.PaymentMethod paymentMethod, String paymentReference) {
-        return billRepository.findById(billId)
+        recordPayment(billId, UUID.randomUUID().toString(), amount, paymentMethod, paymentReference);
+        return billRepository.findById(billId).orElseThrow(() -> new RuntimeException("Bill not found"));
+    }
+    
+    /**
+     * Records a payment at most once per idempotency key. A repeated key for the same bill and
+     * amount returns the original payment marked as replayed; any other reuse is a conflict.
+     *
+     * The payment is appended to bill_payments and the bill's paid amount raised in one
+     * transaction that holds the bill row lock. A version or lock conflict with some other
+     * writer of the bill rolls that transaction back and it is retried with backoff, up to
+     * {@code hms.billing.payments.max-attempts} times.
+     */
+    public PaymentReceipt recordPayment(Long billId, String idempotencyKey, BigDecimal amount,
+                                        Bill.PaymentMethod paymentMethod, String paymentReference) {
+        if (idempotencyKey == null || idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must be 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Payment amount must be positive");
+        }
+        if (!Money.isExact(amount)) {
+            throw new IllegalArgumentException("Payment amount must be in whole cents");
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> findReplay(idempotencyKey, billId, amount)
+                        .orElseGet(() -> postPayment(billId, idempotencyKey, amount, paymentMethod, paymentReference)));
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent posting with the same key committed first
+                return transactionTemplate.execute(status -> findReplay(idempotencyKey, billId, amount))
+                        .orElseThrow(() -> e);
+            } catch (OptimisticLockingFailureException | PessimisticLockingFailureException e) {
+                if (attempt >= maxPaymentAttempts) {
+                    log.warn("Payment {} on bill {} still conflicting after {} attempts", idempotencyKey, billId, attempt);
+                    throw e;
+                }
+                log.debug("Payment {} on bill {} hit a write conflict, retrying (attempt {})", idempotencyKey, billId, attempt);
+                backOff(attempt, e);
+            }
+        }
+    }
+    
+    private Optional<PaymentReceipt> findReplay(String idempotencyKey, Long billId, BigDecimal amount) {
+        return billPaymentRepository.findByIdempotencyKey(idempotencyKey).map(payment -> {
+            Bill bill = payment.getBill();
+            if (!bill.getId().equals(billId) || payment.getAmount().compareTo(amount) != 0) {
+                throw new IdempotencyConflictException("Idempotency key was already used for a different payment", idempotencyKey);
+            }
+            return PaymentReceipt.of(payment, bill, true);
+        });
+    }
+    
+    private PaymentReceipt postPayment(Long billId, String idempotencyKey, BigDecimal amount,
+                                       Bill.PaymentMethod paymentMethod, String paymentReference) {
+        BillPayment[] posted = new BillPayment[1];
+        Bill saved = applyChange(billId, () -> billRepository.findById(billId)
                 .map(bill -> {
+                    if (bill.getStatus() == Bill.BillStatus.CANCELLED) {
+                        throw new IllegalArgumentException("Bill is cancelled");
+                    }
                     bill.addPayment(amount);
                     if (bill.isPaid()) {
                         bill.setPaymentStatus(Bill.PaymentStatus.PAID);
@@ -72,12 +191,52 @@ public class BillService {
                         bill.setPaymentStatus(Bill.PaymentStatus.PARTIALLY_PAID);
                         bill.setStatus(Bill.BillStatus.PARTIALLY_PAID);
                     }
-                    bill.setPaymentDate(java.time.LocalDateTime.now());
                     bill.setPaymentMethod(paymentMethod);
                     bill.setPaymentReference(paymentReference);
+
+                    BillPayment payment = new BillPayment();
+                    payment.setBill(bill);
+                    payment.setIdempotencyKey(idempotencyKey);
+                    payment.setAmount(amount);
+                    payment.setPaymentMethod(paymentMethod);
+                    payment.setPaymentReference(paymentReference);
+                    payment.setReceivedAt(bill.getPaymentDate());
+                    // Flush now so a duplicate key surfaces here, before the ledger deltas are written
+                    posted[0] = billPaymentRepository.saveAndFlush(payment);
                     return billRepository.save(bill);
                 })
-                .orElseThrow(() -> new RuntimeException("Bill not found"));
+                .orElseThrow(() -> new RuntimeException("Bill not found")));
+        return PaymentReceipt.of(posted[0], saved, false);
+    }
+    
+    private void backOff(int attempt, RuntimeException conflict) {
+        long maxMillis = paymentRetryBackoff.toMillis() << Math.min(attempt - 1, 6);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxMillis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+    
+    /**
+     * Runs a bill change and moves the balance ledger and revenue rollups by what it changed. The
+     * bill row is locked and its stored state read before the change, so concurrent changes to
+     * one bill apply their deltas one after another.
+     *
+     * @param change returns the saved bill, or null if it was deleted
+     */
+    private Bill applyChange(Long billId, Supplier<Bill> change) {
+        PatientBalanceLedger.Position position = null;
+        RevenueRollupService.Contribution contribution = null;
+        if (billId != null) {
+            position = balanceLedger.lockStoredPosition(billId);
+            contribution = revenueRollups.storedContribution(billId);
+        }
+        Bill saved = change.get();
+        balanceLedger.record(position, saved != null ? PatientBalanceLedger.Position.of(saved) : null);
+        revenueRollups.record(contribution, saved != null ? RevenueRollupService.Contribution.of(saved) : null);
+        return saved;
     }
     
     @Transactional(readOnly = true)
@@ -85,14 +244,15 @@ public class BillService {
         return billRepository.findOverdueBills(LocalDate.now());
     }
     
+    // Period totals are summed from the daily revenue rollups, not from raw bills
     @Transactional(readOnly = true)
     public BigDecimal getTotalBillsInPeriod(LocalDate startDate, LocalDate endDate) {
-        return billRepository.getTotalBillsInPeriod(startDate, endDate);
+        return revenueRollups.getBilledAmount(startDate, endDate);
     }
     
     @Transactional(readOnly = true)
     public BigDecimal getTotalCollectionsInPeriod(LocalDate startDate, LocalDate endDate) {
-        return billRepository.getTotalCollectionsInPeriod(startDate, endDate);
+        return revenueRollups.getCollectedAmount(startDate, endDate);
     }
     
     @Transactional(readOnly = true)
@@ -0,0 +1,133 @@
+package com.hms.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes bookings per doctor-day for the duration of the booking transaction.
+ *
+ * In {@code local} mode a fixed set of striped in-process locks is used, which is enough
+ * for a single node. In {@code advisory} mode a PostgreSQL transaction-scoped advisory lock
+ * is taken instead, so several application nodes share the same critical section.
+ */
+@Component
+public class BookingLockManager {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingLockManager.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean advisory;
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+
+    public BookingLockManager(JdbcTemplate jdbcTemplate,
+                              @Value("${hms.scheduling.booking-lock.mode:local}") String mode,
+                              @Value("${hms.scheduling.booking-lock.stripes:256}") int stripes,
+                              @Value("${hms.scheduling.booking-lock.timeout-ms:2000}") long timeoutMillis) {
+        if (!"local".equalsIgnoreCase(mode) && !"advisory".equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("hms.scheduling.booking-lock.mode must be 'local' or 'advisory': " + mode);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.advisory = "advisory".equalsIgnoreCase(mode);
+        this.stripes = new ReentrantLock[Math.max(stripes, 1)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * True when other nodes may book concurrently, so in-memory schedule state must be
+     * re-read from the database once the lock is held.
+     */
+    public boolean isDistributed() {
+        return advisory;
+    }
+
+    /**
+     * Locks the doctor-day until the current transaction completes.
+     *
+     * @throws SlotUnavailableException if a local lock cannot be acquired within the timeout
+     */
+    public void lockForTransaction(Long doctorId, LocalDate date) {
+        requireTransaction();
+        if (advisory) {
+            lockAdvisory(lockKey(doctorId, date));
+            return;
+        }
+        lockStripe(stripeOf(doctorId, date), doctorId, date);
+    }
+
+    /**
+     * Locks several days of one doctor until the current transaction completes. The locks are
+     * deduplicated and taken in ascending stripe (or advisory key) order, which is the same
+     * order for every caller however its dates map onto stripes, so two overlapping series
+     * cannot deadlock.
+     *
+     * @throws SlotUnavailableException if a local lock cannot be acquired within the timeout
+     */
+    public void lockAllForTransaction(Long doctorId, Collection<LocalDate> dates) {
+        requireTransaction();
+        if (advisory) {
+            TreeSet<Long> keys = new TreeSet<>();
+            dates.forEach(date -> keys.add(lockKey(doctorId, date)));
+            keys.forEach(this::lockAdvisory);
+            return;
+        }
+        // First date per stripe, for the timeout message
+        TreeMap<Integer, LocalDate> stripeDates = new TreeMap<>();
+        dates.forEach(date -> stripeDates.putIfAbsent(stripeOf(doctorId, date), date));
+        stripeDates.forEach((stripe, date) -> lockStripe(stripe, doctorId, date));
+    }
+
+    private void requireTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Booking locks must be taken inside a transaction");
+        }
+    }
+
+    private void lockAdvisory(long key) {
+        // Released by PostgreSQL on commit or rollback
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", key);
+    }
+
+    private void lockStripe(int stripe, Long doctorId, LocalDate date) {
+        ReentrantLock lock = stripes[stripe];
+        try {
+            if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("Timed out waiting for booking lock of doctor {} on {}", doctorId, date);
+                throw new SlotUnavailableException("The doctor's schedule is busy, please try again", doctorId, date);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SlotUnavailableException("Booking was interrupted", doctorId, date);
+        }
+        // Locks taken before a failed one are released here too, when the transaction rolls back
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    private int stripeOf(Long doctorId, LocalDate date) {
+        return Math.floorMod(Long.hashCode(lockKey(doctorId, date)), stripes.length);
+    }
+
+    private long lockKey(Long doctorId, LocalDate date) {
+        return (doctorId << 24) ^ date.toEpochDay();
+    }
+}
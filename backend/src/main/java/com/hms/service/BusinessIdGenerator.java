@@ -0,0 +1,109 @@
+package com.hms.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out human-readable business identifiers such as {@code PAT-00001234}.
+ *
+ * Numbers come from one PostgreSQL sequence per kind (identifier-sequences.sql). Each call to
+ * nextval reserves a whole block, sized by the sequence's INCREMENT BY, which this node then
+ * serves from memory with a single atomic increment; only the call that exhausts a block goes
+ * to the database. Blocks never overlap, so several nodes can generate concurrently without
+ * collisions. Codes are increasing on one node; across nodes they interleave by block, and
+ * numbers reserved by a node that stops are skipped.
+ */
+@Service
+public class BusinessIdGenerator {
+
+    public enum Kind {
+        PATIENT("PAT", "hms_patient_number_seq", 8),
+        BILL("BILL", "hms_bill_number_seq", 10),
+        PRESCRIPTION("RX", "hms_prescription_number_seq", 10);
+
+        private final String prefix;
+        private final String sequence;
+        private final int digits;
+
+        Kind(String prefix, String sequence, int digits) {
+            this.prefix = prefix;
+            this.sequence = sequence;
+            this.digits = digits;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Kind, Allocator> allocators = new EnumMap<>(Kind.class);
+
+    public BusinessIdGenerator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (Kind kind : Kind.values()) {
+            allocators.put(kind, new Allocator());
+        }
+    }
+
+    public String next(Kind kind) {
+        return format(kind, nextValue(kind));
+    }
+
+    public long nextValue(Kind kind) {
+        Allocator allocator = allocators.get(kind);
+        while (true) {
+            Block block = allocator.current;
+            long value = block.next.getAndIncrement();
+            if (value <= block.last) {
+                return value;
+            }
+            synchronized (allocator) {
+                // Only the first thread to find the block exhausted reserves the next one
+                if (allocator.current == block) {
+                    allocator.current = reserveBlock(kind);
+                }
+            }
+        }
+    }
+
+    static String format(Kind kind, long value) {
+        String digits = Long.toString(value);
+        StringBuilder code = new StringBuilder(kind.prefix.length() + 1 + Math.max(kind.digits, digits.length()));
+        code.append(kind.prefix).append('-');
+        for (int i = digits.length(); i < kind.digits; i++) {
+            code.append('0');
+        }
+        return code.append(digits).toString();
+    }
+
+    /**
+     * nextval returns the top of the reserved block (Hibernate's pooled scheme), so changing the
+     * sequence increment in either direction never hands out a number twice.
+     */
+    private Block reserveBlock(Kind kind) {
+        return jdbcTemplate.queryForObject(
+                "SELECT nextval(CAST(? AS regclass)) AS last, increment_by FROM pg_sequences " +
+                "WHERE schemaname = current_schema() AND sequencename = ?",
+                (rs, rowNum) -> {
+                    long last = rs.getLong("last");
+                    return new Block(Math.max(last - rs.getLong("increment_by") + 1, 1), last);
+                },
+                kind.sequence, kind.sequence);
+    }
+
+    private static final class Allocator {
+        private volatile Block current = new Block(1, 0);
+    }
+
+    private static final class Block {
+
+        private final AtomicLong next;
+        private final long last;
+
+        Block(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+    }
+}
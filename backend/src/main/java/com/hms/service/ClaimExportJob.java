@@ -0,0 +1,466 @@
+package com.hms.service;
+
+import com.hms.dto.ClaimExportReport;
+import com.hms.entity.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Writes unpaid insurance-covered bills to per-provider claim files and marks them SUBMITTED.
+ *
+ * Claimable bill ids are read through a server-side cursor ordered by provider, and submitted
+ * in chunks, each in its own transaction: a bulk UPDATE marks the chunk's bills with the claim
+ * file name and returns their current values, which are written through a buffered FileChannel
+ * and forced to disk before the transaction commits. Files are written as {@code .part} and
+ * renamed once complete; a file is rotated when it reaches {@code max-file-size} (at a chunk
+ * boundary, so files may overshoot by up to one chunk).
+ *
+ * Because each file is a sequence of committed chunks followed by at most one chunk that was
+ * not, a run that dies leaves {@code .part} files that the next run trims back to the claims
+ * the database records for them and completes. Bills of the lost chunk are still claimable and
+ * are exported again. Runs on one node at a time, like the other billing jobs.
+ */
+@Component
+public class ClaimExportJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimExportJob.class);
+
+    public static final String CLAIM_SUBMITTED = "SUBMITTED";
+
+    private static final String PART_SUFFIX = ".part";
+    private static final String HEADER = "bill_id,bill_number,patient_id,policy_number,bill_date,bill_type,description," +
+            "billed_amount,paid_amount,claim_amount\n";
+    private static final int HEADER_BYTES = HEADER.getBytes(StandardCharsets.UTF_8).length;
+    private static final DateTimeFormatter RUN_ID = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final int MAX_PROVIDER_SLUG = 40;
+
+    // Must agree with idx_bill_claimable (billing-indexes.sql)
+    private static final String CLAIMABLE =
+            "is_insurance_covered = true AND insurance_provider IS NOT NULL " +
+            "AND payment_status IN ('PENDING', 'OVERDUE') " +
+            "AND (insurance_claim_status IS NULL OR insurance_claim_status = 'PENDING')";
+
+    private static final String STREAM_CLAIMABLE =
+            "SELECT id, insurance_provider FROM bills WHERE " + CLAIMABLE + " ORDER BY insurance_provider, id";
+
+    private static final String SUBMIT =
+            "UPDATE bills SET insurance_claim_status = '" + CLAIM_SUBMITTED + "', insurance_claim_batch = :batch, " +
+            "version = COALESCE(version, 0) + 1, updated_at = :now " +
+            "WHERE id IN (:ids) AND insurance_provider = :provider AND " + CLAIMABLE + " " +
+            "RETURNING id, bill_number, patient_id, insurance_policy_number, bill_date, bill_type, item_name, " +
+            "final_amount, paid_amount";
+
+    private static final String FIND_SUBMITTED =
+            "SELECT id FROM bills WHERE id IN (:ids) AND insurance_claim_batch = :batch";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate cursorTransaction;
+    private final TransactionTemplate chunkTransaction;
+    private final Path directory;
+    private final long maxFileSize;
+    private final int bufferSize;
+    private final int fetchSize;
+    private final int chunkSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ClaimExportReport progress;
+    private volatile ClaimExportReport lastReport;
+
+    public ClaimExportJob(NamedParameterJdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                          @Value("${hms.billing.claims-export.directory:exports/claims}") Path directory,
+                          @Value("${hms.billing.claims-export.max-file-size:64MB}") DataSize maxFileSize,
+                          @Value("${hms.billing.claims-export.buffer-size:256KB}") DataSize bufferSize,
+                          @Value("${hms.billing.claims-export.fetch-size:1000}") int fetchSize,
+                          @Value("${hms.billing.claims-export.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cursorTransaction = new TransactionTemplate(transactionManager);
+        this.cursorTransaction.setReadOnly(true);
+        // Chunks commit on their own connection while the cursor's transaction stays open
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.directory = directory;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.bufferSize = (int) bufferSize.toBytes();
+        this.fetchSize = fetchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${hms.billing.claims-export.cron:0 0 3 * * *}")
+    public void scheduledRun() {
+        run();
+    }
+
+    /**
+     * Completes the files of an interrupted run, then exports every claimable bill, unless a run
+     * is already in progress, in which case that run's progress is returned.
+     */
+    public ClaimExportReport run() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Claim export already in progress, skipping");
+            return progress;
+        }
+        Export export = null;
+        try {
+            Files.createDirectories(directory);
+            int recovered = recoverPartFiles();
+            export = new Export(LocalDateTime.now(), recovered);
+            Export current = export;
+            progress = export.report(null);
+            cursorTransaction.executeWithoutResult(status -> jdbcTemplate.getJdbcOperations().query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(STREAM_CLAIMABLE);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, current::processRow));
+            export.finish();
+
+            ClaimExportReport report = export.report(LocalDateTime.now());
+            if (report.billsExported() > 0 || recovered > 0) {
+                log.info("Claim export submitted {} bills totalling {} for {} providers in {} files ({} recovered)",
+                        report.billsExported(), report.amountClaimed(), report.providers(), report.filesWritten(), recovered);
+            }
+            lastReport = report;
+            progress = report;
+            return report;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Claim export failed", e);
+        } finally {
+            if (export != null) {
+                // Leaves an unfinished file as .part for the next run to recover
+                export.abandon();
+            }
+            running.set(false);
+        }
+    }
+
+    public ClaimExportReport getProgress() {
+        return running.get() ? progress : lastReport;
+    }
+
+    private int recoverPartFiles() throws IOException {
+        List<Path> parts;
+        try (Stream<Path> files = Files.list(directory)) {
+            parts = files.filter(file -> file.getFileName().toString().endsWith(PART_SUFFIX))
+                    .sorted(Comparator.comparing(Path::toString))
+                    .toList();
+        }
+        for (Path part : parts) {
+            String batch = part.getFileName().toString();
+            batch = batch.substring(0, batch.length() - PART_SUFFIX.length());
+            long submittedLength = submittedLength(part, batch);
+            if (submittedLength <= HEADER_BYTES) {
+                Files.delete(part);
+                log.warn("Claim file {} of an interrupted export had no submitted claims, deleted", part);
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                channel.truncate(submittedLength);
+                channel.force(true);
+            }
+            Files.move(part, directory.resolve(batch), StandardCopyOption.ATOMIC_MOVE);
+            log.warn("Completed claim file {} of an interrupted export ({} bytes kept)", batch, submittedLength);
+        }
+        return parts.size();
+    }
+
+    /**
+     * Length of the leading claims of a file that the database records as submitted in it. Lines
+     * are checked a chunk at a time and the first unrecorded or partial line ends the prefix.
+     */
+    private long submittedLength(Path part, String batch) throws IOException {
+        long fileSize = Files.size(part);
+        try (BufferedReader reader = Files.newBufferedReader(part, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null || !HEADER.equals(header + "\n") || fileSize < HEADER_BYTES) {
+                return 0;
+            }
+            long length = HEADER_BYTES;
+            List<Long> ids = new ArrayList<>(chunkSize);
+            long[] lineEnds = new long[chunkSize];
+            long offset = HEADER_BYTES;
+            String line;
+            boolean complete = true;
+            while (complete) {
+                ids.clear();
+                while (ids.size() < chunkSize && (line = reader.readLine()) != null) {
+                    offset += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                    int comma = line.indexOf(',');
+                    if (offset > fileSize || comma <= 0) {
+                        complete = false;
+                        break;
+                    }
+                    try {
+                        ids.add(Long.parseLong(line.substring(0, comma)));
+                    } catch (NumberFormatException e) {
+                        complete = false;
+                        break;
+                    }
+                    lineEnds[ids.size() - 1] = offset;
+                }
+                if (ids.isEmpty()) {
+                    break;
+                }
+                Set<Long> submitted = new HashSet<>(jdbcTemplate.queryForList(FIND_SUBMITTED,
+                        new MapSqlParameterSource("ids", ids).addValue("batch", batch), Long.class));
+                for (int i = 0; i < ids.size(); i++) {
+                    if (!submitted.contains(ids.get(i))) {
+                        return length;
+                    }
+                    length = lineEnds[i];
+                }
+                complete &= ids.size() == chunkSize;
+            }
+            return length;
+        }
+    }
+
+    private static String providerSlug(String provider) {
+        String slug = provider.replaceAll("[^A-Za-z0-9]+", "-").replaceAll("^-+|-+$", "");
+        if (slug.length() > MAX_PROVIDER_SLUG) {
+            slug = slug.substring(0, MAX_PROVIDER_SLUG);
+        }
+        return slug.isEmpty() ? "provider" : slug;
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString().replace('\r', ' ').replace('\n', ' ');
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private record Claim(long billId, String line, Money claimAmount) {
+
+        static Claim of(ResultSet rs) throws SQLException {
+            Money billed = Money.of(rs.getBigDecimal("final_amount"));
+            Money paid = Money.of(rs.getBigDecimal("paid_amount"));
+            Money claimed = billed.minus(paid).max(Money.ZERO);
+            String line = String.join(",",
+                    Long.toString(rs.getLong("id")),
+                    csv(rs.getString("bill_number")),
+                    Long.toString(rs.getLong("patient_id")),
+                    csv(rs.getString("insurance_policy_number")),
+                    csv(rs.getObject("bill_date", LocalDate.class)),
+                    csv(rs.getString("bill_type")),
+                    csv(rs.getString("item_name")),
+                    billed.toString(), paid.toString(), claimed.toString()) + "\n";
+            return new Claim(rs.getLong("id"), line, claimed);
+        }
+    }
+
+    /**
+     * State of one run while the cursor is open: the provider being read, its pending chunk of
+     * bill ids and the claim file being written.
+     */
+    private final class Export {
+
+        private final LocalDateTime startedAt;
+        private final String runId;
+        private final int recovered;
+        private final long[] chunkIds = new long[chunkSize];
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+        private String provider;
+        private int pendingIds;
+        private FileChannel channel;
+        private Path partFile;
+        private String batch;
+        private long fileBytes;
+        private long fileClaims;
+        private int fileSequence;
+        private long exported;
+        private long claimedCents;
+        private int providers;
+        private int files;
+        private int chunks;
+        private long totalMillis;
+        private long maxChunkMillis;
+
+        Export(LocalDateTime startedAt, int recovered) {
+            this.startedAt = startedAt;
+            this.runId = RUN_ID.format(startedAt);
+            this.recovered = recovered;
+        }
+
+        void processRow(ResultSet rs) throws SQLException {
+            String rowProvider = rs.getString("insurance_provider");
+            if (!rowProvider.equals(provider)) {
+                flushChunk();
+                closeFile();
+                provider = rowProvider;
+                providers++;
+            }
+            chunkIds[pendingIds++] = rs.getLong("id");
+            if (pendingIds == chunkSize) {
+                flushChunk();
+            }
+        }
+
+        void finish() {
+            flushChunk();
+            closeFile();
+        }
+
+        private void flushChunk() {
+            if (pendingIds == 0) {
+                return;
+            }
+            List<Long> ids = new ArrayList<>(pendingIds);
+            for (int i = 0; i < pendingIds; i++) {
+                ids.add(chunkIds[i]);
+            }
+            pendingIds = 0;
+            if (channel != null && fileBytes >= maxFileSize) {
+                closeFile();
+            }
+            if (channel == null) {
+                openFile();
+            }
+
+            long chunkStart = System.nanoTime();
+            long[] result = chunkTransaction.execute(status -> submitChunk(ids));
+            long chunkMillis = (System.nanoTime() - chunkStart) / 1_000_000;
+            exported += result[0];
+            claimedCents = Math.addExact(claimedCents, result[1]);
+            totalMillis += chunkMillis;
+            maxChunkMillis = Math.max(maxChunkMillis, chunkMillis);
+            chunks++;
+            log.debug("Claim export chunk {}: {} of {} bills submitted to {} in {} ms", chunks, result[0], ids.size(),
+                    batch, chunkMillis);
+            progress = report(null);
+        }
+
+        /**
+         * Marks the chunk's bills and writes their claims, returning the number of claims and their
+         * total in cents. The file is forced before the transaction commits.
+         */
+        private long[] submitChunk(List<Long> ids) {
+            List<Claim> claims = jdbcTemplate.query(SUBMIT, new MapSqlParameterSource()
+                    .addValue("ids", ids)
+                    .addValue("provider", provider)
+                    .addValue("batch", batch)
+                    .addValue("now", LocalDateTime.now()), (rs, rowNum) -> Claim.of(rs));
+            claims.sort(Comparator.comparingLong(Claim::billId));
+            long cents = 0;
+            try {
+                for (Claim claim : claims) {
+                    write(claim.line().getBytes(StandardCharsets.UTF_8));
+                    cents = Math.addExact(cents, claim.claimAmount().minorUnits());
+                }
+                drain();
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write claim file " + partFile, e);
+            }
+            fileClaims += claims.size();
+            return new long[] {claims.size(), cents};
+        }
+
+        private void openFile() {
+            batch = String.format("claims_%s_%04d_%s.csv", runId, ++fileSequence, providerSlug(provider));
+            partFile = directory.resolve(batch + PART_SUFFIX);
+            try {
+                channel = FileChannel.open(partFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                fileBytes = 0;
+                fileClaims = 0;
+                write(HEADER.getBytes(StandardCharsets.UTF_8));
+                drain();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not create claim file " + partFile, e);
+            }
+        }
+
+        private void closeFile() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+                channel = null;
+                if (fileClaims == 0) {
+                    Files.delete(partFile);
+                    return;
+                }
+                Files.move(partFile, directory.resolve(batch), StandardCopyOption.ATOMIC_MOVE);
+                files++;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not complete claim file " + partFile, e);
+            }
+        }
+
+        void abandon() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Could not close claim file {}", partFile, e);
+            }
+            channel = null;
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.remaining()) {
+                drain();
+            }
+            if (bytes.length > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes));
+            } else {
+                buffer.put(bytes);
+            }
+            fileBytes += bytes.length;
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+
+        ClaimExportReport report(LocalDateTime finishedAt) {
+            return new ClaimExportReport(startedAt, finishedAt, exported, new Money(claimedCents).toBigDecimal(),
+                    providers, files, recovered, chunks, chunks == 0 ? 0 : totalMillis / chunks, maxChunkMillis);
+        }
+    }
+}
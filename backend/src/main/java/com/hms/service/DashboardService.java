@@ -0,0 +1,97 @@
+package com.hms.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Assembles dashboards from independent queries run concurrently, so latency is that of the
+ * slowest part rather than the sum. Each part runs in its own read-only transaction. A part
+ * that fails or misses its timeout is left out and named under {@code unavailable} instead of
+ * failing the whole dashboard.
+ *
+ * Every part has its own timeout, counted from when it is submitted. The part's transaction
+ * carries the same timeout, which Spring applies to each JDBC statement as a query timeout,
+ * so a timed-out part's query is cancelled in the database instead of holding a connection.
+ */
+@Service
+public class DashboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardService.class);
+
+    private final AppointmentService appointmentService;
+    private final MedicalRecordService medicalRecordService;
+    private final PrescriptionService prescriptionService;
+    private final BillService billService;
+    private final ExecutorService executor;
+    private final Duration partTimeout;
+    private final TransactionTemplate partTransaction;
+
+    public DashboardService(AppointmentService appointmentService, MedicalRecordService medicalRecordService,
+                            PrescriptionService prescriptionService, BillService billService,
+                            @Qualifier("queryFanOutExecutor") ExecutorService executor,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${hms.dashboard.part-timeout:PT2S}") Duration partTimeout) {
+        this.appointmentService = appointmentService;
+        this.medicalRecordService = medicalRecordService;
+        this.prescriptionService = prescriptionService;
+        this.billService = billService;
+        this.executor = executor;
+        this.partTimeout = partTimeout;
+        this.partTransaction = new TransactionTemplate(transactionManager);
+        this.partTransaction.setReadOnly(true);
+        // JDBC query timeouts have whole-second resolution
+        this.partTransaction.setTimeout((int) Math.max(1, (partTimeout.toMillis() + 999) / 1000));
+    }
+
+    public Map<String, Object> getPatientDashboard(Long patientId) {
+        Map<String, Supplier<Object>> parts = new LinkedHashMap<>();
+        parts.put("recentAppointments", () -> appointmentService.getRecentAppointmentsForPatient(patientId, 5));
+        parts.put("recentRecords", () -> medicalRecordService.getRecentMedicalRecordsForPatient(patientId, 5));
+        parts.put("recentPrescriptions", () -> prescriptionService.getRecentPrescriptionsForPatient(patientId, 5));
+        parts.put("outstandingAmount", () -> billService.getOutstandingAmountForPatient(patientId).orElse(BigDecimal.ZERO));
+        return fanOut(parts);
+    }
+
+    private Map<String, Object> fanOut(Map<String, Supplier<Object>> parts) {
+        Map<String, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+        parts.forEach((name, part) -> futures.put(name,
+                CompletableFuture.supplyAsync(() -> partTransaction.execute(status -> part.get()), executor)
+                        .orTimeout(partTimeout.toMillis(), TimeUnit.MILLISECONDS)));
+
+        Map<String, Object> result = new HashMap<>();
+        List<String> unavailable = new ArrayList<>();
+        for (Map.Entry<String, CompletableFuture<Object>> entry : futures.entrySet()) {
+            try {
+                result.put(entry.getKey(), entry.getValue().join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    log.warn("Dashboard part {} timed out after {}", entry.getKey(), partTimeout);
+                } else {
+                    log.warn("Dashboard part {} failed", entry.getKey(), e.getCause());
+                }
+                unavailable.add(entry.getKey());
+            }
+        }
+        result.put("unavailable", unavailable);
+        return result;
+    }
+}
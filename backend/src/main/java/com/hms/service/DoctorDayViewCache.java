@@ -0,0 +1,124 @@
+package com.hms.service;
+
+import com.hms.dto.AppointmentSummary;
+import com.hms.repository.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory day views of doctor schedules, the list a doctor dashboard shows.
+ *
+ * A day is loaded from the database on first read and afterwards kept current by the
+ * committed appointment transitions: status changes are applied in place, new bookings cost a
+ * single-row lookup. Each day is loaded and updated under its own monitor, so a transition
+ * committed while the day is loading is applied on top of the loaded list rather than lost.
+ * The number of cached days is bounded; the least recently read day is dropped first and past
+ * days are evicted nightly.
+ */
+@Component
+public class DoctorDayViewCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorDayViewCache.class);
+    private static final Comparator<AppointmentSummary> BY_TIME = Comparator
+            .comparing(AppointmentSummary::appointmentTime)
+            .thenComparing(AppointmentSummary::appointmentId);
+
+    private final AppointmentRepository appointmentRepository;
+    private final int maxDays;
+    private final Map<DayKey, DayView> days = new ConcurrentHashMap<>();
+
+    public DoctorDayViewCache(AppointmentRepository appointmentRepository,
+                              @Value("${hms.scheduling.day-view.max-days:5000}") int maxDays) {
+        this.appointmentRepository = appointmentRepository;
+        this.maxDays = maxDays;
+    }
+
+    public List<AppointmentSummary> getDayView(Long doctorId, LocalDate date) {
+        DayKey key = new DayKey(doctorId, date);
+        DayView view = days.get(key);
+        if (view == null) {
+            view = days.computeIfAbsent(key, k -> new DayView());
+            trimToSize();
+        }
+        return view.read(doctorId, date);
+    }
+
+    public void invalidate(Long doctorId, LocalDate date) {
+        days.remove(new DayKey(doctorId, date));
+    }
+
+    @TransactionalEventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        DayView view = days.get(new DayKey(event.doctorId(), event.date()));
+        if (view != null) {
+            view.apply(event);
+        }
+    }
+
+    @Scheduled(cron = "${hms.scheduling.index-eviction-cron:0 5 0 * * *}")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        int before = days.size();
+        days.keySet().removeIf(key -> key.date().isBefore(today));
+        log.debug("Evicted {} past doctor day views", before - days.size());
+    }
+
+    private void trimToSize() {
+        while (days.size() > maxDays) {
+            days.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().lastRead))
+                    .ifPresent(eldest -> days.remove(eldest.getKey(), eldest.getValue()));
+        }
+    }
+
+    private record DayKey(Long doctorId, LocalDate date) {
+    }
+
+    private final class DayView {
+
+        // Immutable snapshot, replaced on every change; null until loaded
+        private List<AppointmentSummary> appointments;
+        private volatile long lastRead = System.nanoTime();
+
+        List<AppointmentSummary> read(Long doctorId, LocalDate date) {
+            lastRead = System.nanoTime();
+            synchronized (this) {
+                if (appointments == null) {
+                    appointments = List.copyOf(appointmentRepository.findDayView(doctorId, date));
+                }
+                return appointments;
+            }
+        }
+
+        synchronized void apply(AppointmentChangedEvent event) {
+            if (appointments == null) {
+                // Not loaded yet; the load will read the committed state
+                return;
+            }
+            List<AppointmentSummary> updated = new ArrayList<>(appointments);
+            for (int i = 0; i < updated.size(); i++) {
+                if (updated.get(i).appointmentId().equals(event.appointmentId())) {
+                    updated.set(i, updated.get(i).withStatus(event.status()));
+                    appointments = List.copyOf(updated);
+                    return;
+                }
+            }
+            appointmentRepository.findSummaryById(event.appointmentId()).ifPresent(summary -> {
+                updated.add(summary);
+                updated.sort(BY_TIME);
+                appointments = List.copyOf(updated);
+            });
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.hms.service;
+
+import com.hms.dto.AppointmentSlot;
+import com.hms.repository.AppointmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory occupancy index of doctor schedules.
+ *
+ * Every doctor-day is kept as a bitset of fixed-width slots (5 minutes by default), so a
+ * conflict check is a few word operations instead of a database round trip. Days are
+ * loaded lazily from the appointments table on first use. Appointments that do not start
+ * or end on a slot boundary occupy every slot they touch. The uk_doctor_time constraint
+ * stays the final guard against stale index state.
+ *
+ * Holds (slots kept free for a waitlist offer) exist only here, so they are tracked apart
+ * from the bitsets and laid back over a day whenever it is reloaded or partly released.
+ */
+@Component
+public class DoctorScheduleIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorScheduleIndex.class);
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final AppointmentRepository appointmentRepository;
+    private final int slotMinutes;
+    private final int slotsPerDay;
+    private final ConcurrentHashMap<DayKey, DaySlots> days = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<DayKey, Set<SlotRange>> holds = new ConcurrentHashMap<>();
+
+    public DoctorScheduleIndex(AppointmentRepository appointmentRepository,
+                               @Value("${hms.scheduling.slot-minutes:5}") int slotMinutes) {
+        if (slotMinutes <= 0 || MINUTES_PER_DAY % slotMinutes != 0) {
+            throw new IllegalArgumentException("hms.scheduling.slot-minutes must divide a day evenly: " + slotMinutes);
+        }
+        this.appointmentRepository = appointmentRepository;
+        this.slotMinutes = slotMinutes;
+        this.slotsPerDay = MINUTES_PER_DAY / slotMinutes;
+    }
+
+    public int getSlotMinutes() {
+        return slotMinutes;
+    }
+
+    public boolean isAvailable(Long doctorId, LocalDate date, LocalTime time, int durationMinutes) {
+        return day(doctorId, date).isFree(firstSlot(time), endSlot(time, durationMinutes));
+    }
+
+    /**
+     * Atomically checks and marks the slots covered by an appointment.
+     *
+     * @return false if any of the slots is already occupied
+     */
+    public boolean tryReserve(Long doctorId, LocalDate date, LocalTime time, int durationMinutes) {
+        return day(doctorId, date).tryOccupy(firstSlot(time), endSlot(time, durationMinutes));
+    }
+
+    /**
+     * Frees the slots of an appointment. Slots under a hold stay occupied.
+     */
+    public void release(Long doctorId, LocalDate date, LocalTime time, int durationMinutes) {
+        clear(new DayKey(doctorId, date), firstSlot(time), endSlot(time, durationMinutes));
+    }
+
+    /**
+     * Like {@link #tryReserve}, but the slots stay occupied across {@link #invalidate} and
+     * {@link #release} until {@link #releaseHold} is called.
+     */
+    public boolean tryHold(Long doctorId, LocalDate date, LocalTime time, int durationMinutes) {
+        DayKey key = new DayKey(doctorId, date);
+        SlotRange range = new SlotRange(firstSlot(time), endSlot(time, durationMinutes));
+        DaySlots slots = day(doctorId, date);
+        synchronized (slots) {
+            if (!slots.tryOccupy(range.from(), range.to())) {
+                return false;
+            }
+            holds.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(range);
+        }
+        // A reload that raced with this hold may have missed it
+        DaySlots current = days.get(key);
+        if (current != null && current != slots) {
+            applyHolds(key, current);
+        }
+        return true;
+    }
+
+    /**
+     * Drops a hold and frees its slots.
+     */
+    public void releaseHold(Long doctorId, LocalDate date, LocalTime time, int durationMinutes) {
+        DayKey key = new DayKey(doctorId, date);
+        SlotRange range = new SlotRange(firstSlot(time), endSlot(time, durationMinutes));
+        holds.computeIfPresent(key, (k, ranges) -> ranges.remove(range) && ranges.isEmpty() ? null : ranges);
+        clear(key, range.from(), range.to());
+    }
+
+    /**
+     * Frees the part of an appointment that lies after {@code from}, e.g. when a visit
+     * finishes early. The slot containing {@code from} stays occupied.
+     */
+    public void releaseRemainder(Long doctorId, LocalDate date, LocalTime time, int durationMinutes, LocalTime from) {
+        int fromMinute = from.getHour() * 60 + from.getMinute() + (from.getSecond() > 0 || from.getNano() > 0 ? 1 : 0);
+        int first = Math.max(firstSlot(time), ceilSlot(fromMinute));
+        clear(new DayKey(doctorId, date), first, endSlot(time, durationMinutes));
+    }
+
+    /**
+     * Loads every missing doctor-day of the range with a single query, so a search across
+     * many doctors does not fall back to one query per doctor-day.
+     */
+    public void preload(Collection<Long> doctorIds, LocalDate startDate, LocalDate endDate) {
+        List<Long> missing = doctorIds.stream()
+                .distinct()
+                .filter(doctorId -> !isLoaded(doctorId, startDate, endDate))
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        
+        Map<DayKey, DaySlots> loaded = new HashMap<>();
+        for (Long doctorId : missing) {
+            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+                loaded.put(new DayKey(doctorId, date), new DaySlots(slotsPerDay));
+            }
+        }
+        for (AppointmentSlot slot : appointmentRepository.findOccupiedSlotsForDoctors(missing, startDate, endDate)) {
+            DaySlots slots = loaded.get(new DayKey(slot.doctorId(), slot.appointmentDate()));
+            if (slots != null) {
+                slots.set(firstSlot(slot.appointmentTime()), endSlot(slot.appointmentTime(), durationOf(slot)));
+            }
+        }
+        // Days loaded concurrently by a booking win; they already reflect that booking
+        loaded.forEach((key, slots) -> applyHolds(key, putIfAbsent(key, slots)));
+    }
+
+    /**
+     * Drops a doctor-day so the next access reloads it from the database. Holds survive.
+     */
+    public void invalidate(Long doctorId, LocalDate date) {
+        days.remove(new DayKey(doctorId, date));
+    }
+
+    @Scheduled(cron = "${hms.scheduling.index-eviction-cron:0 5 0 * * *}")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        int before = days.size();
+        days.keySet().removeIf(key -> key.date().isBefore(today));
+        holds.keySet().removeIf(key -> key.date().isBefore(today));
+        log.debug("Evicted {} past doctor-days from the schedule index", before - days.size());
+    }
+
+    private boolean isLoaded(Long doctorId, LocalDate startDate, LocalDate endDate) {
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            if (!days.containsKey(new DayKey(doctorId, date))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private DaySlots day(Long doctorId, LocalDate date) {
+        DayKey key = new DayKey(doctorId, date);
+        DaySlots slots = days.get(key);
+        if (slots != null) {
+            return slots;
+        }
+        DaySlots loaded = new DaySlots(slotsPerDay);
+        for (AppointmentSlot slot : appointmentRepository.findOccupiedSlots(doctorId, date)) {
+            loaded.set(firstSlot(slot.appointmentTime()), endSlot(slot.appointmentTime(), durationOf(slot)));
+        }
+        slots = putIfAbsent(key, loaded);
+        applyHolds(key, slots);
+        return slots;
+    }
+
+    private DaySlots putIfAbsent(DayKey key, DaySlots slots) {
+        DaySlots existing = days.putIfAbsent(key, slots);
+        return existing != null ? existing : slots;
+    }
+
+    private void clear(DayKey key, int from, int to) {
+        DaySlots slots = days.get(key);
+        if (slots != null) {
+            synchronized (slots) {
+                slots.clear(from, to);
+                applyHolds(key, slots);
+            }
+        }
+    }
+
+    private void applyHolds(DayKey key, DaySlots slots) {
+        Set<SlotRange> ranges = holds.get(key);
+        if (ranges != null) {
+            synchronized (slots) {
+                ranges.forEach(range -> slots.set(range.from(), range.to()));
+            }
+        }
+    }
+
+    private int durationOf(AppointmentSlot slot) {
+        return slot.durationMinutes() != null ? slot.durationMinutes() : AppointmentService.DEFAULT_DURATION_MINUTES;
+    }
+
+    private int firstSlot(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / slotMinutes;
+    }
+
+    private int endSlot(LocalTime time, int durationMinutes) {
+        int endMinute = time.getHour() * 60 + time.getMinute() + Math.max(durationMinutes, 1);
+        return Math.min(ceilSlot(endMinute), slotsPerDay);
+    }
+
+    private int ceilSlot(int minute) {
+        return (minute + slotMinutes - 1) / slotMinutes;
+    }
+
+    private record DayKey(Long doctorId, LocalDate date) {
+    }
+
+    private record SlotRange(int from, int to) {
+    }
+
+    /**
+     * Occupancy bitset of one doctor-day. Slot ranges are half-open: [from, to).
+     */
+    static final class DaySlots {
+
+        private final long[] words;
+
+        DaySlots(int slots) {
+            this.words = new long[(slots + 63) >>> 6];
+        }
+
+        synchronized boolean isFree(int from, int to) {
+            for (int i = from; i < to; ) {
+                int span = Math.min(64 - (i & 63), to - i);
+                if ((words[i >>> 6] & mask(i, span)) != 0) {
+                    return false;
+                }
+                i += span;
+            }
+            return true;
+        }
+
+        synchronized boolean tryOccupy(int from, int to) {
+            if (!isFree(from, to)) {
+                return false;
+            }
+            set(from, to);
+            return true;
+        }
+
+        synchronized void set(int from, int to) {
+            for (int i = from; i < to; ) {
+                int span = Math.min(64 - (i & 63), to - i);
+                words[i >>> 6] |= mask(i, span);
+                i += span;
+            }
+        }
+
+        synchronized void clear(int from, int to) {
+            for (int i = from; i < to; ) {
+                int span = Math.min(64 - (i & 63), to - i);
+                words[i >>> 6] &= ~mask(i, span);
+                i += span;
+            }
+        }
+
+        private static long mask(int from, int span) {
+            return (span == 64 ? -1L : (1L << span) - 1) << (from & 63);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.hms.service;
+
+import com.hms.dto.DunningReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Nightly dunning run: marks open bills past their due date OVERDUE and sends each patient one
+ * {@link PaymentReminderEvent} covering all of their overdue bills.
+ *
+ * The overdue set is read through a single server-side cursor (a read-only transaction with a
+ * fetch size), ordered by patient, so only one fetch of rows and one patient's bills are held
+ * at a time. Completed patients are collected into chunks that are written in their own short
+ * transactions: one bulk UPDATE flips the chunk's bills, bumping version and updated_at like
+ * any other write, and the chunk's reminders are published after it commits. The UPDATE
+ * re-checks the status, so bills paid while the cursor is open are left alone and dropped from
+ * the reminder. OVERDUE still counts as open, so the balance ledger and revenue rollups are
+ * unaffected.
+ */
+@Component
+public class DunningJob {
+
+    private static final Logger log = LoggerFactory.getLogger(DunningJob.class);
+
+    // Must agree with PatientBalanceLedger.SETTLED: every other payment status is open
+    private static final String OPEN = "payment_status IN ('PENDING', 'PARTIALLY_PAID', 'OVERDUE')";
+
+    private static final String STREAM_OVERDUE =
+            "SELECT id, patient_id, bill_number, due_date, payment_status, " +
+            "GREATEST(final_amount - paid_amount, 0) AS outstanding_amount " +
+            "FROM bills WHERE " + OPEN + " AND due_date < ? ORDER BY patient_id, id";
+
+    private static final String MARK_OVERDUE =
+            "UPDATE bills SET payment_status = 'OVERDUE', version = COALESCE(version, 0) + 1, updated_at = :now " +
+            "WHERE id IN (:ids) AND payment_status IN ('PENDING', 'PARTIALLY_PAID') AND due_date < :today " +
+            "RETURNING id";
+
+    private static final String STILL_OVERDUE =
+            "SELECT id FROM bills WHERE id IN (:ids) AND " + OPEN + " AND due_date < :today";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate cursorTransaction;
+    private final TransactionTemplate chunkTransaction;
+    private final int fetchSize;
+    private final int chunkSize;
+    private final int reminderIntervalDays;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile DunningReport progress;
+    private volatile DunningReport lastReport;
+
+    public DunningJob(NamedParameterJdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${hms.billing.dunning.fetch-size:1000}") int fetchSize,
+                      @Value("${hms.billing.dunning.chunk-size:1000}") int chunkSize,
+                      @Value("${hms.billing.dunning.reminder-interval-days:7}") int reminderIntervalDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.cursorTransaction = new TransactionTemplate(transactionManager);
+        this.cursorTransaction.setReadOnly(true);
+        // Chunks commit on their own connection while the cursor's transaction stays open
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.fetchSize = fetchSize;
+        this.chunkSize = chunkSize;
+        this.reminderIntervalDays = reminderIntervalDays;
+    }
+
+    @Scheduled(cron = "${hms.billing.dunning.cron:0 0 2 * * *}")
+    public void scheduledRun() {
+        run();
+    }
+
+    /**
+     * Runs dunning for bills due before today unless a run is already in progress, in which case
+     * that run's progress is returned.
+     */
+    public DunningReport run() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Dunning run already in progress, skipping");
+            return progress;
+        }
+        try {
+            Run run = new Run(LocalDate.now());
+            progress = run.report(null);
+            cursorTransaction.executeWithoutResult(status -> jdbcTemplate.getJdbcOperations().query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(STREAM_OVERDUE);
+                statement.setFetchSize(fetchSize);
+                statement.setObject(1, run.today);
+                return statement;
+            }, run::processRow));
+            run.finish();
+
+            DunningReport report = run.report(LocalDateTime.now());
+            if (report.billsScanned() > 0) {
+                log.info("Dunning run marked {} bills overdue and reminded {} patients of {} outstanding ({} overdue bills)",
+                        report.billsMarkedOverdue(), report.remindersSent(), report.amountOverdue(), report.billsScanned());
+            }
+            lastReport = report;
+            progress = report;
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public DunningReport getProgress() {
+        return running.get() ? progress : lastReport;
+    }
+
+    /**
+     * Whether a patient is reminded this run: when a bill has just become overdue, and then every
+     * {@code hms.billing.dunning.reminder-interval-days} days after their oldest due date.
+     */
+    private boolean shouldRemind(LocalDate today, LocalDate oldestDueDate, int newlyOverdue) {
+        return newlyOverdue > 0
+                || (reminderIntervalDays > 0 && ChronoUnit.DAYS.between(oldestDueDate, today) % reminderIntervalDays == 0);
+    }
+
+    private ChunkResult writeChunk(LocalDate today, List<PatientBills> patients) {
+        List<Long> ids = new ArrayList<>();
+        List<Long> unmarked = new ArrayList<>();
+        for (PatientBills patient : patients) {
+            for (PaymentReminderEvent.OverdueBill bill : patient.bills) {
+                ids.add(bill.billId());
+            }
+            unmarked.addAll(patient.unmarked);
+        }
+
+        // A chunk holds whole patients, so it can carry more than chunkSize bills; keep each IN list
+        // to chunkSize ids, well under PostgreSQL's 32767 bind parameters per statement
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> marked = new HashSet<>();
+        for (int from = 0; from < unmarked.size(); from += chunkSize) {
+            List<Long> batch = unmarked.subList(from, Math.min(from + chunkSize, unmarked.size()));
+            marked.addAll(jdbcTemplate.queryForList(MARK_OVERDUE,
+                    new MapSqlParameterSource("ids", batch).addValue("now", now).addValue("today", today), Long.class));
+        }
+        Set<Long> overdue = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            overdue.addAll(jdbcTemplate.queryForList(STILL_OVERDUE,
+                    new MapSqlParameterSource("ids", batch).addValue("today", today), Long.class));
+        }
+
+        int reminders = 0;
+        BigDecimal amount = BigDecimal.ZERO;
+        for (PatientBills patient : patients) {
+            List<PaymentReminderEvent.OverdueBill> bills = new ArrayList<>(patient.bills.size());
+            BigDecimal outstanding = BigDecimal.ZERO;
+            LocalDate oldestDueDate = null;
+            int newlyOverdue = 0;
+            for (PaymentReminderEvent.OverdueBill bill : patient.bills) {
+                if (!overdue.contains(bill.billId())) {
+                    continue;
+                }
+                bills.add(bill);
+                outstanding = outstanding.add(bill.outstandingAmount());
+                if (oldestDueDate == null || bill.dueDate().isBefore(oldestDueDate)) {
+                    oldestDueDate = bill.dueDate();
+                }
+                if (marked.contains(bill.billId())) {
+                    newlyOverdue++;
+                }
+            }
+            amount = amount.add(outstanding);
+            if (!bills.isEmpty() && shouldRemind(today, oldestDueDate, newlyOverdue)) {
+                // Delivered to @TransactionalEventListener listeners once this chunk commits
+                eventPublisher.publishEvent(new PaymentReminderEvent(patient.patientId, today, List.copyOf(bills),
+                        outstanding, oldestDueDate, newlyOverdue));
+                reminders++;
+            }
+        }
+        return new ChunkResult(marked.size(), reminders, amount);
+    }
+
+    /**
+     * State of one run while the cursor is open: the patient being read and the completed
+     * patients waiting for the next chunk.
+     */
+    private final class Run {
+
+        private final LocalDate today;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final List<PatientBills> pending = new ArrayList<>();
+        private PatientBills current;
+        private int pendingBills;
+        private long scanned;
+        private long marked;
+        private long reminders;
+        private BigDecimal amount = BigDecimal.ZERO;
+        private int chunks;
+        private long totalMillis;
+        private long maxChunkMillis;
+
+        Run(LocalDate today) {
+            this.today = today;
+        }
+
+        void processRow(ResultSet rs) throws SQLException {
+            long patientId = rs.getLong("patient_id");
+            if (current == null || current.patientId != patientId) {
+                complete();
+                current = new PatientBills(patientId);
+            }
+            Long billId = rs.getLong("id");
+            current.bills.add(new PaymentReminderEvent.OverdueBill(billId, rs.getString("bill_number"),
+                    rs.getObject("due_date", LocalDate.class), rs.getBigDecimal("outstanding_amount")));
+            if (!"OVERDUE".equals(rs.getString("payment_status"))) {
+                current.unmarked.add(billId);
+            }
+            scanned++;
+        }
+
+        void finish() {
+            complete();
+            if (!pending.isEmpty()) {
+                flush();
+            }
+        }
+
+        private void complete() {
+            if (current == null) {
+                return;
+            }
+            pending.add(current);
+            pendingBills += current.bills.size();
+            current = null;
+            if (pendingBills >= chunkSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            long chunkStart = System.nanoTime();
+            ChunkResult result = chunkTransaction.execute(status -> writeChunk(today, pending));
+            long chunkMillis = (System.nanoTime() - chunkStart) / 1_000_000;
+            marked += result.marked();
+            reminders += result.reminders();
+            amount = amount.add(result.amount());
+            totalMillis += chunkMillis;
+            maxChunkMillis = Math.max(maxChunkMillis, chunkMillis);
+            chunks++;
+            log.debug("Dunning chunk {}: {} patients, {} bills marked overdue in {} ms", chunks, pending.size(),
+                    result.marked(), chunkMillis);
+            pending.clear();
+            pendingBills = 0;
+            progress = report(null);
+        }
+
+        DunningReport report(LocalDateTime finishedAt) {
+            return new DunningReport(startedAt, finishedAt, scanned, marked, reminders, amount, chunks,
+                    chunks == 0 ? 0 : totalMillis / chunks, maxChunkMillis);
+        }
+    }
+
+    private static final class PatientBills {
+
+        private final long patientId;
+        private final List<PaymentReminderEvent.OverdueBill> bills = new ArrayList<>();
+        private final List<Long> unmarked = new ArrayList<>();
+
+        PatientBills(long patientId) {
+            this.patientId = patientId;
+        }
+    }
+
+    private record ChunkResult(int marked, int reminders, BigDecimal amount) {
+    }
+}
@@ -0,0 +1,249 @@
+package com.hms.service;
+
+import com.hms.repository.AppointmentRepository;
+import com.hms.repository.PrescriptionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes emergency appointment and prescription changes to open emergency boards over
+ * server-sent events.
+ *
+ * A board receives one snapshot when it connects and then only the changes committed by the
+ * service layer, so idle screens cost no queries. Every board has its own event queue, drained
+ * on a small shared pool, so a slow client does not delay the committing request. A board whose
+ * queue overflows is disconnected; the browser reconnects and gets a fresh snapshot.
+ *
+ * Events are rendered to frames once, on the publishing thread, and the same immutable frame is
+ * queued to every board: SSE event builders are not safe to build twice or from several threads.
+ */
+@Component
+public class EmergencyBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(EmergencyBroadcaster.class);
+
+    private final AppointmentRepository appointmentRepository;
+    private final PrescriptionRepository prescriptionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long streamTimeoutMillis;
+    private final int maxPendingEvents;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ThreadPoolExecutor sender;
+
+    public EmergencyBroadcaster(AppointmentRepository appointmentRepository, PrescriptionRepository prescriptionRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${hms.emergency.stream-timeout:PT30M}") Duration streamTimeout,
+                                @Value("${hms.emergency.max-pending-events:1000}") int maxPendingEvents,
+                                @Value("${hms.emergency.sender-threads:4}") int senderThreads) {
+        this.appointmentRepository = appointmentRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.streamTimeoutMillis = streamTimeout.toMillis();
+        this.maxPendingEvents = Math.max(maxPendingEvents, 1);
+        // Each board has at most one drain task queued or running, so the queue is bounded by the boards
+        AtomicInteger threads = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "emergency-sse-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.sender.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Registers a new board and queues its snapshot as the first event. The board joins the
+     * broadcast before the snapshot is read, and changes arriving meanwhile are held back until
+     * the snapshot has been queued, so none is lost or overwritten by older snapshot state.
+     * Browsers reconnect on their own when the stream times out.
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        subscribers.add(subscriber);
+        try {
+            Map<String, Object> snapshot = readOnlyTransaction.execute(status -> snapshot());
+            subscriber.start(frame(SseEmitter.event().name("snapshot").data(snapshot)));
+        } catch (RuntimeException e) {
+            subscriber.close();
+            throw e;
+        }
+        return emitter;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("appointments", appointmentRepository.findEmergencyAppointments().stream()
+                .map(appointment -> AppointmentChangedEvent.of(appointment, AppointmentService.durationOf(appointment)))
+                .toList());
+        snapshot.put("prescriptions", prescriptionRepository.findEmergencyPrescriptions().stream()
+                .map(prescription -> PrescriptionChangedEvent.of(prescription, false))
+                .toList());
+        return snapshot;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.emergency()) {
+            broadcast(SseEmitter.event().name("appointment").data(event));
+        }
+    }
+
+    @TransactionalEventListener
+    public void onPrescriptionChanged(PrescriptionChangedEvent event) {
+        if (event.emergency()) {
+            broadcast(SseEmitter.event().name("prescription").data(event));
+        }
+    }
+
+    /**
+     * Keeps idle connections open through proxies and drops clients that have gone away.
+     */
+    @Scheduled(fixedDelayString = "${hms.emergency.heartbeat-interval:PT25S}")
+    public void heartbeat() {
+        broadcast(SseEmitter.event().comment("heartbeat"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private void broadcast(SseEmitter.SseEventBuilder event) {
+        Set<ResponseBodyEmitter.DataWithMediaType> frame = frame(event);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(frame);
+        }
+    }
+
+    private static Set<ResponseBodyEmitter.DataWithMediaType> frame(SseEmitter.SseEventBuilder event) {
+        return Collections.unmodifiableSet(event.build());
+    }
+
+    /**
+     * One board's pending events. At most one drain task per board runs at a time, which
+     * keeps the board's events in order.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        // Guarded by this
+        private final ArrayDeque<Set<ResponseBodyEmitter.DataWithMediaType>> pending = new ArrayDeque<>();
+        private boolean started;
+        private boolean draining;
+        private boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void start(Set<ResponseBodyEmitter.DataWithMediaType> snapshot) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                pending.addFirst(snapshot);
+                started = true;
+                draining = true;
+            }
+            sender.execute(this::drain);
+        }
+
+        void enqueue(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (pending.size() < maxPendingEvents) {
+                    pending.add(event);
+                    if (!started || draining) {
+                        return;
+                    }
+                    draining = true;
+                    sender.execute(this::drain);
+                    return;
+                }
+            }
+            log.debug("Dropping emergency board subscriber: {} events pending", maxPendingEvents);
+            close();
+            emitter.complete();
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+                pending.clear();
+            }
+            subscribers.remove(this);
+        }
+
+        private void drain() {
+            boolean drained = false;
+            try {
+                while (true) {
+                    Set<ResponseBodyEmitter.DataWithMediaType> event;
+                    synchronized (this) {
+                        event = closed ? null : pending.poll();
+                        if (event == null) {
+                            // Cleared together with the empty poll, so a concurrent enqueue starts a new drain
+                            draining = false;
+                            drained = true;
+                            return;
+                        }
+                    }
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping emergency board subscriber: {}", e.getMessage());
+                close();
+                emitter.completeWithError(e);
+            } catch (RuntimeException e) {
+                // The board has missed an event; reconnecting gives it a consistent snapshot
+                log.warn("Could not send to emergency board, disconnecting it", e);
+                close();
+                emitter.completeWithError(e);
+            } finally {
+                if (!drained) {
+                    synchronized (this) {
+                        draining = false;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.hms.service;
+
+/**
+ * Thrown when an idempotency key is reused for a different request than the one it was first
+ * recorded with.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    private final String idempotencyKey;
+
+    public IdempotencyConflictException(String message, String idempotencyKey) {
+        super(message);
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+}
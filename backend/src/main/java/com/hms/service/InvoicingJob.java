@@ -0,0 +1,257 @@
+package com.hms.service;
+
+import com.hms.dto.InvoicingReport;
+import com.hms.dto.UninvoicedAppointment;
+import com.hms.entity.Bill;
+import com.hms.entity.BillPayment;
+import com.hms.entity.Money;
+import com.hms.entity.RevenueRollupKey;
+import com.hms.repository.AppointmentRepository;
+import com.hms.repository.BillPaymentRepository;
+import com.hms.repository.BillRepository;
+import com.hms.repository.PatientRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Nightly run that turns COMPLETED appointments with a consultation fee into CONSULTATION bills.
+ *
+ * Appointments are read in id order, one chunk per transaction, and each chunk's bills are
+ * inserted with JDBC batching (pooled ids, hibernate.jdbc.batch_size) together with one batched
+ * update of the balance ledger and revenue rollups. Only appointments without a consultation
+ * bill are selected and uk_bill_consultation_appointment (billing-indexes.sql) allows one per
+ * appointment, so a run that crashed or overlaps with another simply invoices what is left.
+ */
+@Component
+public class InvoicingJob {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoicingJob.class);
+    private static final int MAX_CHUNK_CONFLICTS = 3;
+
+    private final AppointmentRepository appointmentRepository;
+    private final BillRepository billRepository;
+    private final BillPaymentRepository billPaymentRepository;
+    private final PatientRepository patientRepository;
+    private final PatientBalanceLedger balanceLedger;
+    private final RevenueRollupService revenueRollups;
+    private final TransactionTemplate transactionTemplate;
+    private final BusinessIdGenerator idGenerator;
+    private final int chunkSize;
+    private final int dueDays;
+    private final BigDecimal taxPercentage;
+    private final BigDecimal discountPercentage;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile InvoicingReport progress;
+    private volatile InvoicingReport lastReport;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public InvoicingJob(AppointmentRepository appointmentRepository, BillRepository billRepository,
+                        BillPaymentRepository billPaymentRepository, PatientRepository patientRepository, PatientBalanceLedger balanceLedger,
+                        RevenueRollupService revenueRollups, TransactionTemplate transactionTemplate,
+                        BusinessIdGenerator idGenerator,
+                        @Value("${hms.billing.invoicing.chunk-size:1000}") int chunkSize,
+                        @Value("${hms.billing.invoicing.due-days:30}") int dueDays,
+                        @Value("${hms.billing.invoicing.tax-percentage:0}") BigDecimal taxPercentage,
+                        @Value("${hms.billing.invoicing.discount-percentage:0}") BigDecimal discountPercentage) {
+        this.appointmentRepository = appointmentRepository;
+        this.billRepository = billRepository;
+        this.billPaymentRepository = billPaymentRepository;
+        this.patientRepository = patientRepository;
+        this.balanceLedger = balanceLedger;
+        this.revenueRollups = revenueRollups;
+        this.transactionTemplate = transactionTemplate;
+        this.idGenerator = idGenerator;
+        this.chunkSize = chunkSize;
+        this.dueDays = dueDays;
+        this.taxPercentage = taxPercentage;
+        this.discountPercentage = discountPercentage;
+    }
+
+    @Scheduled(cron = "${hms.billing.invoicing.cron:0 30 1 * * *}")
+    public void scheduledRun() {
+        run();
+    }
+
+    /**
+     * Invoices every completed appointment up to today unless a run is already in progress, in
+     * which case that run's progress is returned.
+     */
+    public InvoicingReport run() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Invoicing run already in progress, skipping");
+            return progress;
+        }
+        try {
+            LocalDate billDate = LocalDate.now();
+            LocalDateTime startedAt = LocalDateTime.now();
+            long startedNanos = System.nanoTime();
+            long checkpoint = 0L;
+            long created = 0L;
+            Money invoiced = Money.ZERO;
+            long totalMillis = 0L;
+            long maxChunkMillis = 0L;
+            int chunks = 0;
+            int conflicts = 0;
+            progress = new InvoicingReport(startedAt, null, 0, BigDecimal.ZERO, 0, 0, 0, 0, null);
+
+            while (true) {
+                long chunkStart = System.nanoTime();
+                long afterId = checkpoint;
+                ChunkResult result;
+                try {
+                    result = transactionTemplate.execute(status -> invoiceChunk(billDate, afterId));
+                } catch (DataIntegrityViolationException e) {
+                    // Another run billed some of these appointments first; re-read the chunk without them
+                    if (++conflicts > MAX_CHUNK_CONFLICTS) {
+                        throw e;
+                    }
+                    log.warn("Invoicing chunk after appointment {} collided with existing bills, retrying", afterId);
+                    continue;
+                }
+                if (result == null || result.appointments() == 0) {
+                    break;
+                }
+
+                long chunkMillis = (System.nanoTime() - chunkStart) / 1_000_000;
+                checkpoint = result.lastAppointmentId();
+                created += result.appointments();
+                invoiced = invoiced.plus(result.amount());
+                totalMillis += chunkMillis;
+                maxChunkMillis = Math.max(maxChunkMillis, chunkMillis);
+                chunks++;
+                conflicts = 0;
+                progress = report(startedAt, null, startedNanos, created, invoiced, chunks, totalMillis, maxChunkMillis, checkpoint);
+                log.debug("Invoicing chunk {}: {} bills in {} ms, checkpoint appointment {}", chunks, result.appointments(),
+                        chunkMillis, checkpoint);
+
+                if (result.appointments() < chunkSize) {
+                    break;
+                }
+            }
+
+            InvoicingReport report = report(startedAt, LocalDateTime.now(), startedNanos, created, invoiced, chunks,
+                    totalMillis, maxChunkMillis, checkpoint);
+            if (created > 0) {
+                log.info("Invoicing run created {} bills totalling {} in {} chunks ({} bills/s)", created, invoiced,
+                        chunks, Math.round(report.billsPerSecond()));
+            }
+            lastReport = report;
+            progress = report;
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ChunkResult invoiceChunk(LocalDate billDate, long afterId) {
+        List<UninvoicedAppointment> appointments = appointmentRepository.findUninvoicedAppointments(
+                billDate, afterId, PageRequest.ofSize(chunkSize));
+        if (appointments.isEmpty()) {
+            return new ChunkResult(0, afterId, Money.ZERO);
+        }
+        List<Bill> bills = new ArrayList<>(appointments.size());
+        List<BillPayment> prepayments = new ArrayList<>();
+        List<PatientBalanceLedger.Position> positions = new ArrayList<>(appointments.size());
+        List<RevenueRollupService.Contribution> contributions = new ArrayList<>(appointments.size());
+        long amountCents = 0;
+        for (UninvoicedAppointment appointment : appointments) {
+            Bill bill = toBill(appointment, billDate);
+            Money finalAmount = Money.of(bill.getFinalAmount());
+            bills.add(bill);
+            if (bill.getPaidAmount().signum() > 0) {
+                prepayments.add(prepayment(bill, appointment));
+            }
+            positions.add(PatientBalanceLedger.Position.of(bill));
+            contributions.add(new RevenueRollupService.Contribution(bill.getBillDate(),
+                    bill.getPaymentDate() != null ? bill.getPaymentDate().toLocalDate() : null, bill.getBillType(),
+                    appointment.departmentId() != null ? appointment.departmentId() : RevenueRollupKey.NO_DEPARTMENT,
+                    RevenueRollupKey.NO_PAYMENT_METHOD, finalAmount, Money.of(bill.getPaidAmount())));
+            amountCents = Math.addExact(amountCents, finalAmount.minorUnits());
+        }
+        billRepository.saveAll(bills);
+        billPaymentRepository.saveAll(prepayments);
+        balanceLedger.recordCreated(positions);
+        revenueRollups.recordCreated(contributions);
+        // Write the batch now and drop it from the persistence context, which may outlive the chunk
+        entityManager.flush();
+        entityManager.clear();
+        return new ChunkResult(appointments.size(), appointments.get(appointments.size() - 1).appointmentId(),
+                new Money(amountCents));
+    }
+
+    private Bill toBill(UninvoicedAppointment appointment, LocalDate billDate) {
+        Bill bill = new Bill();
+        bill.setPatient(patientRepository.getReferenceById(appointment.patientId()));
+        bill.setAppointment(appointmentRepository.getReferenceById(appointment.appointmentId()));
+        bill.setBillNumber(idGenerator.next(BusinessIdGenerator.Kind.BILL));
+        bill.setBillDate(billDate);
+        bill.setDueDate(billDate.plusDays(dueDays));
+        bill.setBillType(Bill.BillType.CONSULTATION);
+        bill.setItemName("Consultation " + appointment.appointmentDate());
+        bill.setItemDescription(appointment.reason());
+        bill.setQuantity(1);
+        bill.setUnitPrice(appointment.consultationFee());
+        bill.setTaxPercentage(taxPercentage);
+        bill.setDiscountPercentage(discountPercentage);
+        bill.calculateAmounts();
+
+        // Fees collected at the desk are carried over so the patient is not billed twice
+        BigDecimal prepaid = appointment.paidAmount() != null
+                ? appointment.paidAmount().min(bill.getFinalAmount()) : BigDecimal.ZERO;
+        if (prepaid.signum() > 0) {
+            bill.addPayment(prepaid);
+            bill.setStatus(bill.isPaid() ? Bill.BillStatus.PAID : Bill.BillStatus.PARTIALLY_PAID);
+        } else {
+            bill.setStatus(Bill.BillStatus.PENDING);
+            bill.setPaymentStatus(Bill.PaymentStatus.PENDING);
+        }
+        return bill;
+    }
+
+    /**
+     * The bill_payments row behind a carried-over desk payment, so the bill's paid amount stays
+     * the sum of its payments. Keyed by appointment, so it is posted at most once.
+     */
+    private static BillPayment prepayment(Bill bill, UninvoicedAppointment appointment) {
+        BillPayment payment = new BillPayment();
+        payment.setBill(bill);
+        payment.setIdempotencyKey("appointment-" + appointment.appointmentId() + "-prepaid");
+        payment.setAmount(bill.getPaidAmount());
+        payment.setPaymentReference("Paid at appointment");
+        payment.setReceivedAt(bill.getPaymentDate());
+        return payment;
+    }
+
+    private static InvoicingReport report(LocalDateTime startedAt, LocalDateTime finishedAt, long startedNanos, long created,
+                                          Money invoiced, int chunks, long totalMillis, long maxChunkMillis,
+                                          long checkpoint) {
+        double seconds = (System.nanoTime() - startedNanos) / 1_000_000_000.0;
+        return new InvoicingReport(startedAt, finishedAt, created, invoiced.toBigDecimal(), chunks,
+                chunks == 0 ? 0 : totalMillis / chunks, maxChunkMillis, seconds > 0 ? created / seconds : 0,
+                chunks == 0 ? null : checkpoint);
+    }
+
+    public InvoicingReport getProgress() {
+        return running.get() ? progress : lastReport;
+    }
+
+    private record ChunkResult(int appointments, long lastAppointmentId, Money amount) {
+    }
+}
@@ -1,10 +1,14 @@
 package com.hms.service;
 
+import com.hms.dto.CursorPage;
+import com.hms.dto.KeysetCursor;
+import com.hms.dto.MedicalRecordView;
 import com.hms.entity.MedicalRecord;
 import com.hms.repository.MedicalRecordRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -34,8 +38,8 @@ public class MedicalRecordService {
     }
     
     @Transactional(readOnly = true)
-    public List<MedicalRecord> getRecentMedicalRecordsForPatient(Long patientId, int limit) {
-        return medicalRecordRepository.findLatestRecordsByPatient(patientId, LocalDate.now(), limit);
+    public List<MedicalRecordView> getRecentMedicalRecordsForPatient(Long patientId, int limit) {
+        return medicalRecordRepository.findLatestRecordViews(patientId, LocalDate.now(), limit);
     }
     
     @Transactional(readOnly = true)
@@ -43,6 +47,20 @@ public class MedicalRecordService {
         return medicalRecordRepository.findMedicalRecordsByPatientId(patientId, pageable);
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<MedicalRecordView> scrollMedicalRecordsForPatient(Long patientId, String cursor, int size, boolean includeTotal) {
+        Pageable limit = PageRequest.ofSize(size + 1);
+        List<MedicalRecordView> rows;
+        if (cursor == null) {
+            rows = medicalRecordRepository.findPatientMedicalRecordsFirstPage(patientId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = medicalRecordRepository.findPatientMedicalRecordsAfter(patientId, after.date(), after.id(), limit);
+        }
+        Long total = includeTotal ? medicalRecordRepository.countByPatientId(patientId) : null;
+        return CursorPage.of(rows, size, view -> new KeysetCursor(view.recordDate(), null, view.id()), total);
+    }
+    
     @Transactional
     public MedicalRecord createMedicalRecord(MedicalRecord record) {
         return medicalRecordRepository.save(record);
@@ -0,0 +1,208 @@
+package com.hms.service;
+
+import com.hms.dto.MedicationCount;
+import com.hms.dto.MedicationSuggestion;
+import com.hms.repository.PrescriptionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-memory autocomplete dictionary of medication and generic names, ranked by how often
+ * they have been prescribed.
+ *
+ * Names are kept in a character trie whose nodes hold sorted child arrays and, precomputed,
+ * the top-K most frequent names below them, so a completion is a walk down the prefix and a
+ * copy of at most K entries. The trie is built from one GROUP BY over both name columns when
+ * the application starts and then updated in place as prescriptions are created. Either way
+ * a prescription counts once for a name, also when its generic name is the same medication
+ * name. Since counts only grow, keeping the per-node top-K current needs no rescans. Writers
+ * are serialized; readers never lock and see each node's arrays replaced whole.
+ */
+@Component
+public class MedicationDictionary {
+
+    private static final Logger log = LoggerFactory.getLogger(MedicationDictionary.class);
+    private static final Comparator<Entry> BY_FREQUENCY = Comparator
+            .comparingLong((Entry entry) -> entry.count).reversed()
+            .thenComparing(entry -> entry.key);
+
+    private final PrescriptionRepository prescriptionRepository;
+    private final int topK;
+    private volatile Node root = new Node();
+    private Map<String, Entry> entries = new HashMap<>();
+
+    public MedicationDictionary(PrescriptionRepository prescriptionRepository,
+                                @Value("${hms.prescriptions.medication-suggestions.top-k:10}") int topK) {
+        this.prescriptionRepository = prescriptionRepository;
+        this.topK = topK;
+    }
+
+    public List<MedicationSuggestion> complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        Entry[] top = node.top;
+        int size = Math.max(0, Math.min(Math.min(limit, topK), top.length));
+        List<MedicationSuggestion> suggestions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            suggestions.add(new MedicationSuggestion(top[i].display, top[i].count));
+        }
+        return suggestions;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        Node newRoot = new Node();
+        Map<String, Entry> newEntries = new HashMap<>();
+        for (MedicationCount count : prescriptionRepository.countByMedicationAndGenericName()) {
+            addPrescribed(newRoot, newEntries, count.medicationName(), count.genericName(), count.count());
+        }
+        entries = newEntries;
+        root = newRoot;
+        log.info("Built medication dictionary with {} names in {} ms", newEntries.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener
+    public synchronized void onPrescriptionChanged(PrescriptionChangedEvent event) {
+        if (!event.created()) {
+            return;
+        }
+        addPrescribed(root, entries, event.medicationName(), event.genericName(), 1);
+    }
+
+    private void addPrescribed(Node root, Map<String, Entry> entries, String medicationName, String genericName,
+                               long prescriptions) {
+        add(root, entries, medicationName, prescriptions);
+        if (!normalize(genericName).equals(normalize(medicationName))) {
+            add(root, entries, genericName, prescriptions);
+        }
+    }
+
+    private void add(Node root, Map<String, Entry> entries, String name, long occurrences) {
+        if (name == null) {
+            return;
+        }
+        String key = normalize(name);
+        if (key.isEmpty()) {
+            return;
+        }
+        Entry entry = entries.computeIfAbsent(key, k -> new Entry(name.trim(), k));
+        entry.count += occurrences;
+        Node node = root;
+        node.offer(entry, topK);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+            node.offer(entry, topK);
+        }
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+
+        private final String display;
+        private final String key;
+        private volatile long count;
+
+        Entry(String display, String key) {
+            this.display = display;
+            this.key = key;
+        }
+    }
+
+    private static final class Node {
+
+        private static final Children NO_CHILDREN = new Children(new char[0], new Node[0]);
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+
+        // Replaced whole on every change so lock-free readers never see a half-updated array
+        private volatile Children children = NO_CHILDREN;
+        private volatile Entry[] top = NO_ENTRIES;
+
+        Node child(char c) {
+            Children current = children;
+            int index = Arrays.binarySearch(current.keys(), c);
+            return index >= 0 ? current.nodes()[index] : null;
+        }
+
+        Node childOrCreate(char c) {
+            Children current = children;
+            int index = Arrays.binarySearch(current.keys(), c);
+            if (index >= 0) {
+                return current.nodes()[index];
+            }
+            int insertAt = -index - 1;
+            int length = current.keys().length;
+            char[] keys = new char[length + 1];
+            Node[] nodes = new Node[length + 1];
+            System.arraycopy(current.keys(), 0, keys, 0, insertAt);
+            System.arraycopy(current.nodes(), 0, nodes, 0, insertAt);
+            System.arraycopy(current.keys(), insertAt, keys, insertAt + 1, length - insertAt);
+            System.arraycopy(current.nodes(), insertAt, nodes, insertAt + 1, length - insertAt);
+            Node child = new Node();
+            keys[insertAt] = c;
+            nodes[insertAt] = child;
+            children = new Children(keys, nodes);
+            return child;
+        }
+
+        /**
+         * Re-ranks an entry whose count just grew, admitting it if it now beats the last one.
+         */
+        void offer(Entry entry, int topK) {
+            Entry[] current = top;
+            boolean present = false;
+            for (Entry candidate : current) {
+                if (candidate == entry) {
+                    present = true;
+                    break;
+                }
+            }
+            Entry[] updated;
+            if (present) {
+                updated = current.clone();
+            } else if (current.length < topK) {
+                updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = entry;
+            } else if (BY_FREQUENCY.compare(entry, current[current.length - 1]) < 0) {
+                updated = current.clone();
+                updated[updated.length - 1] = entry;
+            } else {
+                return;
+            }
+            Arrays.sort(updated, BY_FREQUENCY);
+            top = updated;
+        }
+    }
+
+    /**
+     * Sorted child keys and the matching nodes, swapped together.
+     */
+    private record Children(char[] keys, Node[] nodes) {
+    }
+}
@@ -0,0 +1,296 @@
+package com.hms.service;
+
+import com.hms.dto.BalanceDrift;
+import com.hms.dto.BalanceReconciliationReport;
+import com.hms.entity.Bill;
+import com.hms.entity.Money;
+import com.hms.repository.BillRepository;
+import com.hms.repository.PatientBalanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-patient outstanding balance, maintained incrementally so reading it is a primary key
+ * lookup instead of a SUM over the patient's bills.
+ *
+ * Every bill change applies the difference between the bill's stored and new position as an
+ * upsert on the patient's balance row, inside the transaction that changes the bill; the bill
+ * row is locked first, so concurrent changes to one bill apply their deltas one after another.
+ * A reconciliation job recomputes the balances from the bills table, reports any drift (for
+ * example from rows written outside {@link BillService}) and, unless disabled, repairs it.
+ *
+ * On a database whose bills predate the ledger, the first reconciliation runs as soon as the
+ * application is ready. Until a patient has a balance row, reads fall back to summing their
+ * bills, so no patient is shown a zero balance while the backfill runs.
+ */
+@Service
+public class PatientBalanceLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientBalanceLedger.class);
+    private static final Set<Bill.PaymentStatus> SETTLED = EnumSet.of(Bill.PaymentStatus.PAID, Bill.PaymentStatus.CANCELLED);
+    private static final int REPORTED_DRIFTS = 20;
+
+    // Must agree with SETTLED and Position.of
+    private static final String OPEN_BILL = "payment_status NOT IN ('PAID', 'CANCELLED')";
+    private static final String REMAINING = "GREATEST(final_amount - paid_amount, 0)";
+
+    private static final String APPLY_DELTA =
+            "INSERT INTO patient_balances (patient_id, outstanding_amount, open_bills, updated_at) " +
+            "VALUES (:patientId, :amount, :openBills, :now) " +
+            "ON CONFLICT (patient_id) DO UPDATE SET " +
+            "outstanding_amount = patient_balances.outstanding_amount + EXCLUDED.outstanding_amount, " +
+            "open_bills = patient_balances.open_bills + EXCLUDED.open_bills, updated_at = EXCLUDED.updated_at";
+
+    private static final String FIND_DRIFT =
+            "SELECT COALESCE(t.patient_id, pb.patient_id) AS patient_id, " +
+            "COALESCE(pb.outstanding_amount, 0) AS recorded_amount, COALESCE(t.outstanding, 0) AS expected_amount, " +
+            "COALESCE(pb.open_bills, 0) AS recorded_open_bills, COALESCE(t.open_bills, 0) AS expected_open_bills " +
+            "FROM (SELECT patient_id, SUM(" + REMAINING + ") AS outstanding, COUNT(*) AS open_bills " +
+            "      FROM bills WHERE " + OPEN_BILL + " GROUP BY patient_id) t " +
+            "FULL JOIN patient_balances pb ON pb.patient_id = t.patient_id " +
+            "WHERE COALESCE(pb.outstanding_amount, 0) <> COALESCE(t.outstanding, 0) " +
+            "OR COALESCE(pb.open_bills, 0) <> COALESCE(t.open_bills, 0) " +
+            "ORDER BY 1";
+
+    private static final String REPAIR =
+            "UPDATE patient_balances pb SET " +
+            "outstanding_amount = (SELECT COALESCE(SUM(" + REMAINING + "), 0) FROM bills " +
+            "                      WHERE patient_id = pb.patient_id AND " + OPEN_BILL + "), " +
+            "open_bills = (SELECT COUNT(*) FROM bills WHERE patient_id = pb.patient_id AND " + OPEN_BILL + "), " +
+            "updated_at = :now " +
+            "WHERE pb.patient_id IN (:ids)";
+
+    /**
+     * What one bill contributes to its patient's balance.
+     */
+    public record Position(Long patientId, Money outstanding, boolean open) {
+
+        static Position of(Long patientId, BigDecimal finalAmount, BigDecimal paidAmount, Bill.PaymentStatus paymentStatus) {
+            if (SETTLED.contains(paymentStatus)) {
+                return new Position(patientId, Money.ZERO, false);
+            }
+            Money remaining = Money.of(finalAmount).minus(Money.of(paidAmount));
+            return new Position(patientId, remaining.max(Money.ZERO), true);
+        }
+
+        public static Position of(Bill bill) {
+            return of(bill.getPatient().getId(), bill.getFinalAmount(), bill.getPaidAmount(), bill.getPaymentStatus());
+        }
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final PatientBalanceRepository patientBalanceRepository;
+    private final BillRepository billRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean backfillOnStartup;
+    private final boolean repair;
+    private final int repairChunkSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile BalanceReconciliationReport lastReport;
+
+    public PatientBalanceLedger(NamedParameterJdbcTemplate jdbcTemplate, PatientBalanceRepository patientBalanceRepository,
+                                BillRepository billRepository, TransactionTemplate transactionTemplate,
+                                @Value("${hms.billing.balance-ledger.backfill-on-startup:true}") boolean backfillOnStartup,
+                                @Value("${hms.billing.balance-ledger.repair:true}") boolean repair,
+                                @Value("${hms.billing.balance-ledger.repair-chunk-size:500}") int repairChunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.patientBalanceRepository = patientBalanceRepository;
+        this.billRepository = billRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.backfillOnStartup = backfillOnStartup;
+        this.repair = repair;
+        this.repairChunkSize = repairChunkSize;
+    }
+
+    /**
+     * @return null if the patient has no open bills
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getOutstandingAmount(Long patientId) {
+        BigDecimal outstanding = patientBalanceRepository.findOutstandingAmount(patientId);
+        if (outstanding != null) {
+            return outstanding;
+        }
+        // No row yet: the patient has never had a bill, or their bills predate the ledger
+        return billRepository.getTotalOutstandingAmount(patientId);
+    }
+
+    /**
+     * Locks the bill row and returns its position as stored, ignoring any unflushed changes to
+     * the entity. Call before modifying the bill.
+     *
+     * @return null if the bill does not exist
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Position lockStoredPosition(Long billId) {
+        List<Position> rows = jdbcTemplate.query(
+                "SELECT patient_id, final_amount, paid_amount, payment_status FROM bills WHERE id = :id FOR UPDATE",
+                new MapSqlParameterSource("id", billId),
+                (rs, rowNum) -> Position.of(rs.getLong("patient_id"), rs.getBigDecimal("final_amount"),
+                        rs.getBigDecimal("paid_amount"), Bill.PaymentStatus.valueOf(rs.getString("payment_status"))));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Moves the ledger from a bill's old position to its new one; either may be null for a
+     * created or deleted bill.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Position before, Position after) {
+        if (before != null && after != null && Objects.equals(before.patientId(), after.patientId())) {
+            applyDelta(after.patientId(), after.outstanding().minus(before.outstanding()),
+                    (after.open() ? 1 : 0) - (before.open() ? 1 : 0));
+            return;
+        }
+        if (before != null) {
+            applyDelta(before.patientId(), before.outstanding().negate(), before.open() ? -1 : 0);
+        }
+        if (after != null) {
+            applyDelta(after.patientId(), after.outstanding(), after.open() ? 1 : 0);
+        }
+    }
+
+    /**
+     * Adds newly created bills in bulk: one delta per patient, summed in cents, applied in
+     * patient id order and sent as a single JDBC batch.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Collection<Position> created) {
+        Map<Long, PatientDelta> deltas = new TreeMap<>();
+        for (Position position : created) {
+            PatientDelta delta = deltas.computeIfAbsent(position.patientId(), id -> new PatientDelta());
+            delta.cents = Math.addExact(delta.cents, position.outstanding().minorUnits());
+            delta.openBills += position.open() ? 1 : 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        MapSqlParameterSource[] batch = deltas.entrySet().stream()
+                .filter(entry -> entry.getValue().cents != 0 || entry.getValue().openBills != 0)
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("patientId", entry.getKey())
+                        .addValue("amount", new Money(entry.getValue().cents).toBigDecimal())
+                        .addValue("openBills", entry.getValue().openBills)
+                        .addValue("now", now))
+                .toArray(MapSqlParameterSource[]::new);
+        if (batch.length > 0) {
+            jdbcTemplate.batchUpdate(APPLY_DELTA, batch);
+        }
+    }
+
+    private void applyDelta(Long patientId, Money amount, int openBills) {
+        if (amount.isZero() && openBills == 0) {
+            return;
+        }
+        jdbcTemplate.update(APPLY_DELTA, new MapSqlParameterSource()
+                .addValue("patientId", patientId)
+                .addValue("amount", amount.toBigDecimal())
+                .addValue("openBills", openBills)
+                .addValue("now", LocalDateTime.now()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!backfillOnStartup || patientBalanceRepository.count() > 0) {
+            return;
+        }
+        log.info("Patient balance ledger is empty, backfilling from bills");
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${hms.billing.balance-ledger.reconcile-interval:PT6H}",
+               initialDelayString = "${hms.billing.balance-ledger.initial-delay:PT1M}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Compares every balance with its patient's open bills. Detection is a single statement, so
+     * it sees bills and ledger at one consistent point. Repairs lock the affected balance rows
+     * before recomputing them; a bill change still in flight then waits and applies its delta on
+     * top of the repaired value.
+     */
+    public BalanceReconciliationReport reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Balance reconciliation already running, skipping");
+            return lastReport;
+        }
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            List<BalanceDrift> drifts = new ArrayList<>();
+            List<Long> driftedIds = new ArrayList<>();
+            jdbcTemplate.query(FIND_DRIFT, rs -> {
+                driftedIds.add(rs.getLong("patient_id"));
+                if (drifts.size() < REPORTED_DRIFTS) {
+                    drifts.add(new BalanceDrift(rs.getLong("patient_id"), rs.getBigDecimal("recorded_amount"),
+                            rs.getBigDecimal("expected_amount"), rs.getLong("recorded_open_bills"),
+                            rs.getLong("expected_open_bills")));
+                }
+            });
+
+            long repaired = 0;
+            if (repair) {
+                for (int from = 0; from < driftedIds.size(); from += repairChunkSize) {
+                    List<Long> chunk = driftedIds.subList(from, Math.min(from + repairChunkSize, driftedIds.size()));
+                    Integer updated = transactionTemplate.execute(status -> repairChunk(chunk));
+                    repaired += updated != null ? updated : 0;
+                }
+            }
+
+            if (!driftedIds.isEmpty()) {
+                log.warn("Balance ledger drift for {} patients, {} repaired; first: {}", driftedIds.size(), repaired,
+                        drifts.get(0));
+            }
+            BalanceReconciliationReport report = new BalanceReconciliationReport(startedAt, LocalDateTime.now(),
+                    driftedIds.size(), repaired, List.copyOf(drifts));
+            lastReport = report;
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int repairChunk(List<Long> patientIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", patientIds)
+                .addValue("now", LocalDateTime.now());
+        // Create missing rows, then lock in id order; the recompute runs as a new statement so
+        // it sees everything committed before the locks were granted
+        jdbcTemplate.update("INSERT INTO patient_balances (patient_id, outstanding_amount, open_bills, updated_at) " +
+                "SELECT id, 0, 0, :now FROM unnest(ARRAY[:ids]::bigint[]) AS t(id) " +
+                "ON CONFLICT (patient_id) DO NOTHING", params);
+        jdbcTemplate.queryForList("SELECT patient_id FROM patient_balances WHERE patient_id IN (:ids) " +
+                "ORDER BY patient_id FOR UPDATE", params, Long.class);
+        return jdbcTemplate.update(REPAIR, params);
+    }
+
+    public BalanceReconciliationReport getLastReport() {
+        return lastReport;
+    }
+
+    private static final class PatientDelta {
+
+        private long cents;
+        private long openBills;
+    }
+}
@@ -0,0 +1,16 @@
+package com.hms.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Published by {@link DunningJob} once per patient and run, after the chunk that marked the
+ * patient's bills OVERDUE has committed. Like the other events it only carries plain values.
+ */
+public record PaymentReminderEvent(Long patientId, LocalDate runDate, List<OverdueBill> bills,
+                                   BigDecimal outstandingAmount, LocalDate oldestDueDate, int newlyOverdue) {
+
+    public record OverdueBill(Long billId, String billNumber, LocalDate dueDate, BigDecimal outstandingAmount) {
+    }
+}
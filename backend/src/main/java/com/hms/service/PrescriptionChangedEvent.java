@@ -0,0 +1,28 @@
+package com.hms.service;
+
+import com.hms.entity.Prescription;
+
+import java.time.LocalDate;
+
+/**
+ * Published by {@link PrescriptionService} when a prescription is written or changes state.
+ * Like {@link AppointmentChangedEvent} it only carries plain values.
+ */
+public record PrescriptionChangedEvent(Long prescriptionId, Long patientId, Long doctorId, LocalDate prescriptionDate,
+                                       String medicationName, String genericName, String dosage,
+                                       Prescription.PrescriptionStatus status, boolean emergency, boolean created) {
+
+    static PrescriptionChangedEvent of(Prescription prescription, boolean created) {
+        return new PrescriptionChangedEvent(
+                prescription.getId(),
+                prescription.getPatient().getId(),
+                prescription.getDoctor().getId(),
+                prescription.getPrescriptionDate(),
+                prescription.getMedicationName(),
+                prescription.getGenericName(),
+                prescription.getDosage(),
+                prescription.getStatus(),
+                Boolean.TRUE.equals(prescription.getIsEmergency()),
+                created);
+    }
+}
@@ -1,10 +1,15 @@
 package com.hms.service;
 
+import com.hms.dto.CursorPage;
+import com.hms.dto.KeysetCursor;
+import com.hms.dto.PrescriptionView;
 import com.hms.entity.Prescription;
 import com.hms.repository.PrescriptionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,9 +23,14 @@ public class PrescriptionService {
     
     private static final Logger log = LoggerFactory.getLogger(PrescriptionService.class);
     private final PrescriptionRepository prescriptionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BusinessIdGenerator idGenerator;
 
-    public PrescriptionService(PrescriptionRepository prescriptionRepository) {
+    public PrescriptionService(PrescriptionRepository prescriptionRepository, ApplicationEventPublisher eventPublisher,
+                               BusinessIdGenerator idGenerator) {
         this.prescriptionRepository = prescriptionRepository;
+        this.eventPublisher = eventPublisher;
+        this.idGenerator = idGenerator;
     }
     
     @Transactional(readOnly = true)
@@ -34,11 +44,8 @@ public class PrescriptionService {
     }
     
     @Transactional(readOnly = true)
-    public List<Prescription> getRecentPrescriptionsForPatient(Long patientId, int limit) {
-        // Since there's no direct method in repo for this, we use the list and limit
-        // Or we could have added findLatestRecordsByPatient like in MedicalRecord
-        // Let's just use the pageable for now
-        return prescriptionRepository.findPrescriptionsByPatientId(patientId, Pageable.ofSize(limit)).getContent();
+    public List<PrescriptionView> getRecentPrescriptionsForPatient(Long patientId, int limit) {
+        return prescriptionRepository.findRecentPrescriptionViews(patientId, limit);
     }
     
     @Transactional(readOnly = true)
@@ -46,8 +53,27 @@ public class PrescriptionService {
         return prescriptionRepository.findPrescriptionsByPatientId(patientId, pageable);
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<PrescriptionView> scrollPrescriptionsForPatient(Long patientId, String cursor, int size, boolean includeTotal) {
+        Pageable limit = PageRequest.ofSize(size + 1);
+        List<PrescriptionView> rows;
+        if (cursor == null) {
+            rows = prescriptionRepository.findPatientPrescriptionsFirstPage(patientId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = prescriptionRepository.findPatientPrescriptionsAfter(patientId, after.date(), after.id(), limit);
+        }
+        Long total = includeTotal ? prescriptionRepository.countByPatientId(patientId) : null;
+        return CursorPage.of(rows, size, view -> new KeysetCursor(view.prescriptionDate(), null, view.id()), total);
+    }
+    
     @Transactional
     public Prescription createPrescription(Prescription prescription) {
-        return prescriptionRepository.save(prescription);
+        if (prescription.getPrescriptionNumber() == null) {
+            prescription.setPrescriptionNumber(idGenerator.next(BusinessIdGenerator.Kind.PRESCRIPTION));
+        }
+        Prescription saved = prescriptionRepository.save(prescription);
+        eventPublisher.publishEvent(PrescriptionChangedEvent.of(saved, true));
+        return saved;
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.hms.service;
+
+import com.hms.dto.ResourceStamp;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Computes {@link ResourceStamp}s for a patient's data, so endpoints can answer conditional
+ * GETs with 304 without loading or serializing the payload. All requested scopes are
+ * aggregated in a single round trip.
+ */
+@Service
+public class ResourceStampService {
+
+    public enum Scope {
+        APPOINTMENTS("appointments"),
+        MEDICAL_RECORDS("medical_records"),
+        PRESCRIPTIONS("prescriptions"),
+        BILLS("bills");
+
+        private final String table;
+
+        Scope(String table) {
+            this.table = table;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ResourceStampService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional(readOnly = true)
+    public ResourceStamp stampForPatient(Long patientId, Scope... scopes) {
+        String sql = Arrays.stream(scopes)
+                .map(scope -> "SELECT COUNT(*), COALESCE(SUM(version), 0), MAX(updated_at) FROM " + scope.table
+                        + " WHERE patient_id = ?")
+                .collect(Collectors.joining(" UNION ALL "));
+        Object[] args = new Object[scopes.length];
+        Arrays.fill(args, patientId);
+        return jdbcTemplate.query(sql, rs -> {
+            ResourceStamp stamp = ResourceStamp.EMPTY;
+            while (rs.next()) {
+                stamp = stamp.combine(new ResourceStamp(rs.getLong(1), rs.getLong(2), rs.getObject(3, LocalDateTime.class)));
+            }
+            return stamp;
+        }, args);
+    }
+}
@@ -0,0 +1,293 @@
+package com.hms.service;
+
+import com.hms.dto.RevenueBreakdown;
+import com.hms.dto.RevenueReport;
+import com.hms.dto.RollupRebuildReport;
+import com.hms.entity.Bill;
+import com.hms.entity.Money;
+import com.hms.entity.RevenueRollupKey;
+import com.hms.repository.RevenueDailyRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Daily billed and collected totals per bill type, department and payment method, so period
+ * reports sum a few rows per day instead of scanning every bill in the period.
+ *
+ * Like {@link PatientBalanceLedger}, rollups move by the difference between a bill's stored and
+ * new contribution, upserted in the transaction that changes the bill. Ranges can be rebuilt
+ * from the bills table one month per transaction; each chunk holds a table lock that makes
+ * concurrent bill changes wait, so none of them is lost between the recompute and the swap.
+ * An empty rollup table is backfilled on startup.
+ */
+@Service
+public class RevenueRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(RevenueRollupService.class);
+
+    private static final String APPLY_DELTA =
+            "INSERT INTO revenue_daily_rollups AS r (rollup_date, bill_type, department_id, payment_method, " +
+            "billed_amount, bill_count, collected_amount, updated_at) " +
+            "VALUES (:date, :billType, :departmentId, :paymentMethod, :billed, :bills, :collected, :now) " +
+            "ON CONFLICT (rollup_date, bill_type, department_id, payment_method) DO UPDATE SET " +
+            "billed_amount = r.billed_amount + EXCLUDED.billed_amount, bill_count = r.bill_count + EXCLUDED.bill_count, " +
+            "collected_amount = r.collected_amount + EXCLUDED.collected_amount, updated_at = EXCLUDED.updated_at";
+
+    // Concurrent writers upsert rollup rows in this order, so they queue on row locks instead of deadlocking
+    private static final Comparator<RevenueRollupKey> LOCK_ORDER = Comparator
+            .comparing(RevenueRollupKey::getRollupDate)
+            .thenComparing(key -> key.getBillType().name())
+            .thenComparing(RevenueRollupKey::getDepartmentId)
+            .thenComparing(RevenueRollupKey::getPaymentMethod);
+
+    // Must agree with Contribution.of
+    private static final String REBUILD =
+            "INSERT INTO revenue_daily_rollups (rollup_date, bill_type, department_id, payment_method, " +
+            "billed_amount, bill_count, collected_amount, updated_at) " +
+            "SELECT day, bill_type, department_id, payment_method, SUM(billed), SUM(bills), SUM(collected), :now FROM (" +
+            "  SELECT b.bill_date AS day, b.bill_type, COALESCE(a.department_id, 0) AS department_id," +
+            "         COALESCE(b.payment_method, 'NONE') AS payment_method, b.final_amount AS billed, 1 AS bills, 0 AS collected" +
+            "  FROM bills b LEFT JOIN appointments a ON a.id = b.appointment_id" +
+            "  WHERE b.bill_date >= :from AND b.bill_date <= :to" +
+            "  UNION ALL" +
+            "  SELECT CAST(b.payment_date AS DATE), b.bill_type, COALESCE(a.department_id, 0)," +
+            "         COALESCE(b.payment_method, 'NONE'), 0, 0, b.paid_amount" +
+            "  FROM bills b LEFT JOIN appointments a ON a.id = b.appointment_id" +
+            "  WHERE b.payment_date >= :from AND b.payment_date < :toExclusive AND b.paid_amount <> 0" +
+            ") c GROUP BY day, bill_type, department_id, payment_method";
+
+    /**
+     * What one bill adds to the rollups: its final amount on its bill date and its paid amount
+     * on its last payment date.
+     */
+    public record Contribution(LocalDate billDate, LocalDate paymentDay, Bill.BillType billType, long departmentId,
+                               String paymentMethod, Money billed, Money collected) {
+
+        public static Contribution of(Bill bill) {
+            long departmentId = bill.getAppointment() != null && bill.getAppointment().getDepartment() != null
+                    ? bill.getAppointment().getDepartment().getId() : RevenueRollupKey.NO_DEPARTMENT;
+            return new Contribution(bill.getBillDate(),
+                    bill.getPaymentDate() != null ? bill.getPaymentDate().toLocalDate() : null,
+                    bill.getBillType(), departmentId,
+                    bill.getPaymentMethod() != null ? bill.getPaymentMethod().name() : RevenueRollupKey.NO_PAYMENT_METHOD,
+                    Money.of(bill.getFinalAmount()), Money.of(bill.getPaidAmount()));
+        }
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final RevenueDailyRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean backfillOnStartup;
+
+    public RevenueRollupService(NamedParameterJdbcTemplate jdbcTemplate, RevenueDailyRollupRepository rollupRepository,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${hms.billing.revenue-rollups.backfill-on-startup:true}") boolean backfillOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.backfillOnStartup = backfillOnStartup;
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getBilledAmount(LocalDate startDate, LocalDate endDate) {
+        return rollupRepository.sumBilledAmount(startDate, endDate);
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getCollectedAmount(LocalDate startDate, LocalDate endDate) {
+        return rollupRepository.sumCollectedAmount(startDate, endDate);
+    }
+
+    @Transactional(readOnly = true)
+    public RevenueReport getReport(LocalDate from, LocalDate to) {
+        List<RevenueBreakdown> breakdown = rollupRepository.findBreakdown(from, to);
+        BigDecimal billed = BigDecimal.ZERO;
+        BigDecimal collected = BigDecimal.ZERO;
+        long bills = 0;
+        for (RevenueBreakdown row : breakdown) {
+            billed = billed.add(row.billedAmount());
+            collected = collected.add(row.collectedAmount());
+            bills += row.billCount();
+        }
+        return new RevenueReport(from, to, billed, bills, collected, breakdown);
+    }
+
+    /**
+     * Reads a bill's contribution as stored, ignoring unflushed changes to the entity. The
+     * caller is expected to hold the bill row lock.
+     *
+     * @return null if the bill does not exist
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Contribution storedContribution(Long billId) {
+        List<Contribution> rows = jdbcTemplate.query(
+                "SELECT b.bill_date, b.payment_date, b.bill_type, COALESCE(a.department_id, 0) AS department_id, " +
+                "b.payment_method, b.final_amount, b.paid_amount " +
+                "FROM bills b LEFT JOIN appointments a ON a.id = b.appointment_id WHERE b.id = :id",
+                new MapSqlParameterSource("id", billId),
+                (rs, rowNum) -> {
+                    LocalDateTime paymentDate = rs.getObject("payment_date", LocalDateTime.class);
+                    String paymentMethod = rs.getString("payment_method");
+                    return new Contribution(rs.getObject("bill_date", LocalDate.class),
+                            paymentDate != null ? paymentDate.toLocalDate() : null,
+                            Bill.BillType.valueOf(rs.getString("bill_type")), rs.getLong("department_id"),
+                            paymentMethod != null ? paymentMethod : RevenueRollupKey.NO_PAYMENT_METHOD,
+                            Money.of(rs.getBigDecimal("final_amount")), Money.of(rs.getBigDecimal("paid_amount")));
+                });
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Moves the rollups from a bill's old contribution to its new one; either may be null for a
+     * created or deleted bill.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Contribution before, Contribution after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        Map<RevenueRollupKey, Delta> deltas = new TreeMap<>(LOCK_ORDER);
+        if (before != null) {
+            collect(deltas, before, -1);
+        }
+        if (after != null) {
+            collect(deltas, after, 1);
+        }
+        apply(deltas);
+    }
+
+    /**
+     * Adds newly created bills in bulk, one upsert per touched rollup row.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Collection<Contribution> created) {
+        Map<RevenueRollupKey, Delta> deltas = new TreeMap<>(LOCK_ORDER);
+        for (Contribution contribution : created) {
+            collect(deltas, contribution, 1);
+        }
+        apply(deltas);
+    }
+
+    private void apply(Map<RevenueRollupKey, Delta> deltas) {
+        LocalDateTime now = LocalDateTime.now();
+        MapSqlParameterSource[] batch = deltas.entrySet().stream()
+                .filter(entry -> !entry.getValue().isZero())
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("date", entry.getKey().getRollupDate())
+                        .addValue("billType", entry.getKey().getBillType().name())
+                        .addValue("departmentId", entry.getKey().getDepartmentId())
+                        .addValue("paymentMethod", entry.getKey().getPaymentMethod())
+                        .addValue("billed", new Money(entry.getValue().billedCents).toBigDecimal())
+                        .addValue("bills", entry.getValue().bills)
+                        .addValue("collected", new Money(entry.getValue().collectedCents).toBigDecimal())
+                        .addValue("now", now))
+                .toArray(MapSqlParameterSource[]::new);
+        if (batch.length > 0) {
+            jdbcTemplate.batchUpdate(APPLY_DELTA, batch);
+        }
+    }
+
+    private static void collect(Map<RevenueRollupKey, Delta> deltas, Contribution contribution, int sign) {
+        if (contribution.billDate() != null) {
+            Delta billed = deltas.computeIfAbsent(key(contribution, contribution.billDate()), k -> new Delta());
+            billed.billedCents = Math.addExact(billed.billedCents, sign * contribution.billed().minorUnits());
+            billed.bills += sign;
+        }
+        if (contribution.paymentDay() != null && !contribution.collected().isZero()) {
+            Delta collected = deltas.computeIfAbsent(key(contribution, contribution.paymentDay()), k -> new Delta());
+            collected.collectedCents = Math.addExact(collected.collectedCents, sign * contribution.collected().minorUnits());
+        }
+    }
+
+    private static RevenueRollupKey key(Contribution contribution, LocalDate date) {
+        return new RevenueRollupKey(date, contribution.billType(), contribution.departmentId(), contribution.paymentMethod());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!backfillOnStartup || rollupRepository.count() > 0) {
+            return;
+        }
+        LocalDate[] range = jdbcTemplate.queryForObject(
+                "SELECT LEAST(MIN(bill_date), CAST(MIN(payment_date) AS DATE)) AS first_day, " +
+                "GREATEST(MAX(bill_date), CAST(MAX(payment_date) AS DATE)) AS last_day FROM bills",
+                new MapSqlParameterSource(),
+                (rs, rowNum) -> new LocalDate[] {rs.getObject("first_day", LocalDate.class), rs.getObject("last_day", LocalDate.class)});
+        if (range == null || range[0] == null) {
+            return;
+        }
+        LocalDate from = range[0];
+        LocalDate to = range[1];
+        log.info("Revenue rollups are empty, backfilling {} to {}", from, to);
+        rebuild(from, to);
+    }
+
+    /**
+     * Recomputes the rollups of every day in the range from the bills table, one calendar month
+     * per transaction. Bill changes wait while a month is being rebuilt.
+     */
+    public RollupRebuildReport rebuild(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        int chunks = 0;
+        long rows = 0;
+        for (LocalDate chunkStart = from; !chunkStart.isAfter(to); chunkStart = chunkStart.withDayOfMonth(1).plusMonths(1)) {
+            LocalDate chunkEnd = chunkStart.withDayOfMonth(chunkStart.lengthOfMonth());
+            if (chunkEnd.isAfter(to)) {
+                chunkEnd = to;
+            }
+            long chunkStarted = System.nanoTime();
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("from", chunkStart)
+                    .addValue("to", chunkEnd)
+                    .addValue("toExclusive", chunkEnd.plusDays(1).atStartOfDay())
+                    .addValue("now", LocalDateTime.now());
+            Integer inserted = transactionTemplate.execute(status -> {
+                // Conflicts with the ROW EXCLUSIVE lock every delta upsert takes: in-flight bill changes
+                // commit first and are seen by the recompute, later ones wait and apply on top of it
+                jdbcTemplate.getJdbcTemplate().execute("LOCK TABLE revenue_daily_rollups IN SHARE ROW EXCLUSIVE MODE");
+                jdbcTemplate.update("DELETE FROM revenue_daily_rollups WHERE rollup_date >= :from AND rollup_date <= :to", params);
+                return jdbcTemplate.update(REBUILD, params);
+            });
+            chunks++;
+            rows += inserted != null ? inserted : 0;
+            log.debug("Rebuilt revenue rollups {} to {}: {} rows in {} ms", chunkStart, chunkEnd, inserted,
+                    (System.nanoTime() - chunkStarted) / 1_000_000);
+        }
+        log.info("Rebuilt revenue rollups {} to {} in {} chunks, {} rows", from, to, chunks, rows);
+        return new RollupRebuildReport(from, to, startedAt, LocalDateTime.now(), chunks, rows);
+    }
+
+    // Amounts in cents, converted to BigDecimal only when bound to the upsert
+    private static final class Delta {
+
+        private long billedCents;
+        private long bills;
+        private long collectedCents;
+
+        boolean isZero() {
+            return billedCents == 0 && bills == 0 && collectedCents == 0;
+        }
+    }
+}
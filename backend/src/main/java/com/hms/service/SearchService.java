@@ -0,0 +1,231 @@
+package com.hms.service;
+
+import com.hms.dto.MedicalRecordSearchHit;
+import com.hms.dto.PatientSearchHit;
+import com.hms.dto.UserSearchHit;
+import com.hms.entity.MedicalRecord;
+import com.hms.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Ranked, typo-tolerant lookup of patients and users backed by pg_trgm, and full-text search
+ * over medical record narratives.
+ *
+ * Matching uses word similarity ({@code <%}), so a term matches any part of a name, email or
+ * patient number and survives a transposed or missing letter. Every predicate is served by a
+ * trigram GIN index from search-indexes.sql; the expressions here must stay identical to the
+ * indexed ones. The threshold is set per transaction, leaving other sessions untouched.
+ *
+ * Medical records are searched through the generated {@code search_vector} column (see
+ * search-indexes.sql), which PostgreSQL keeps current on every insert and update.
+ */
+@Service
+public class SearchService {
+
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_TERM_LENGTH = 100;
+    private static final int MAX_QUERY_LENGTH = 500;
+    // A "quoted phrase" or a bare token
+    private static final Pattern QUERY_CLAUSE = Pattern.compile("\"([^\"]*)\"|(\\S+)");
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private static final String PATIENT_SEARCH =
+            "WITH candidates AS (" +
+            "  SELECT p.id FROM users u JOIN patients p ON p.user_id = u.id" +
+            "  WHERE :term <% lower(u.first_name || ' ' || u.last_name) OR :term <% lower(u.email)" +
+            "  UNION" +
+            "  SELECT p.id FROM patients p WHERE :term <% lower(p.patient_id)" +
+            ") " +
+            "SELECT p.id AS patient_id, u.id AS user_id, p.patient_id AS patient_number, u.first_name, u.last_name, u.email, " +
+            "GREATEST(word_similarity(:term, lower(u.first_name || ' ' || u.last_name)), " +
+            "         word_similarity(:term, lower(u.email)), " +
+            "         word_similarity(:term, lower(p.patient_id))) AS score " +
+            "FROM candidates c JOIN patients p ON p.id = c.id JOIN users u ON u.id = p.user_id " +
+            "WHERE p.is_deleted = false AND u.is_deleted = false " +
+            "ORDER BY score DESC, u.last_name, u.first_name, p.id " +
+            "LIMIT :limit";
+
+    private static final String USER_SEARCH =
+            "SELECT u.id, u.first_name, u.last_name, u.email, u.role, " +
+            "GREATEST(word_similarity(:term, lower(u.first_name || ' ' || u.last_name)), " +
+            "         word_similarity(:term, lower(u.email))) AS score " +
+            "FROM users u " +
+            "WHERE (:term <% lower(u.first_name || ' ' || u.last_name) OR :term <% lower(u.email)) " +
+            "AND u.is_active = true AND u.is_deleted = false AND (CAST(:role AS VARCHAR) IS NULL OR u.role = :role) " +
+            "ORDER BY score DESC, u.last_name, u.first_name, u.id " +
+            "LIMIT :limit";
+
+    // Ranks and highlights only the top matches; ts_headline is too costly to run on every hit
+    private static final String MEDICAL_RECORD_SEARCH =
+            "WITH q AS (SELECT to_tsquery('english', :tsquery) AS query), " +
+            "top AS (" +
+            "  SELECT mr.id, ts_rank_cd(mr.search_vector, q.query) AS rank" +
+            "  FROM medical_records mr, q" +
+            "  WHERE mr.search_vector @@ q.query" +
+            "  AND (CAST(:patientId AS BIGINT) IS NULL OR mr.patient_id = :patientId)" +
+            "  AND (mr.is_confidential = false OR :allConfidential OR mr.doctor_id = :viewerId)" +
+            "  ORDER BY rank DESC, mr.record_date DESC, mr.id DESC" +
+            "  LIMIT :limit" +
+            ") " +
+            "SELECT mr.id, mr.patient_id, mr.doctor_id, mr.record_date, mr.record_type, mr.chief_complaint, " +
+            "mr.is_confidential, top.rank, " +
+            "ts_headline('english', mr.chief_complaint || ' ... ' || mr.assessment || ' ... ' || mr.plan, q.query, " +
+            "            'MaxFragments=2, MaxWords=20, MinWords=5') AS excerpt " +
+            "FROM top JOIN medical_records mr ON mr.id = top.id, q " +
+            "ORDER BY top.rank DESC, mr.record_date DESC, mr.id DESC";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final double similarityThreshold;
+    private final int maxResults;
+
+    public SearchService(NamedParameterJdbcTemplate jdbcTemplate,
+                         @Value("${hms.search.similarity-threshold:0.3}") double similarityThreshold,
+                         @Value("${hms.search.max-results:50}") int maxResults) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.similarityThreshold = similarityThreshold;
+        this.maxResults = maxResults;
+    }
+
+    @Transactional(readOnly = true)
+    public List<PatientSearchHit> searchPatients(String query, int limit) {
+        String term = normalize(query);
+        if (term == null) {
+            return List.of();
+        }
+        applyThreshold();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("term", term)
+                .addValue("limit", clampLimit(limit));
+        return jdbcTemplate.query(PATIENT_SEARCH, params, (rs, rowNum) -> new PatientSearchHit(
+                rs.getLong("patient_id"),
+                rs.getLong("user_id"),
+                rs.getString("patient_number"),
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getString("email"),
+                rs.getDouble("score")));
+    }
+
+    @Transactional(readOnly = true)
+    public List<UserSearchHit> searchUsers(String query, User.UserRole role, int limit) {
+        String term = normalize(query);
+        if (term == null) {
+            return List.of();
+        }
+        applyThreshold();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("term", term)
+                .addValue("role", role != null ? role.name() : null)
+                .addValue("limit", clampLimit(limit));
+        return jdbcTemplate.query(USER_SEARCH, params, (rs, rowNum) -> new UserSearchHit(
+                rs.getLong("id"),
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getString("email"),
+                User.UserRole.valueOf(rs.getString("role")),
+                rs.getDouble("score")));
+    }
+
+    /**
+     * Full-text search over record narratives (chief complaint, assessment, plan, history and
+     * progress notes, in that order of weight). Supports {@code "quoted phrases"}, prefix terms
+     * ending in {@code *} and plain terms, all of which must match. Confidential records are only
+     * returned to their author or when {@code allConfidential} is set.
+     *
+     * @param patientId restricts the search to one patient, or null to search across patients
+     */
+    @Transactional(readOnly = true)
+    public List<MedicalRecordSearchHit> searchMedicalRecords(String query, Long patientId, Long viewerId,
+                                                             boolean allConfidential, int limit) {
+        String tsQuery = toTsQuery(query);
+        if (tsQuery == null) {
+            return List.of();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tsquery", tsQuery)
+                .addValue("patientId", patientId)
+                .addValue("viewerId", viewerId)
+                .addValue("allConfidential", allConfidential)
+                .addValue("limit", clampLimit(limit));
+        return jdbcTemplate.query(MEDICAL_RECORD_SEARCH, params, (rs, rowNum) -> new MedicalRecordSearchHit(
+                rs.getLong("id"),
+                rs.getLong("patient_id"),
+                rs.getLong("doctor_id"),
+                rs.getObject("record_date", LocalDate.class),
+                MedicalRecord.RecordType.valueOf(rs.getString("record_type")),
+                rs.getString("chief_complaint"),
+                rs.getString("excerpt"),
+                rs.getBoolean("is_confidential"),
+                rs.getDouble("rank")));
+    }
+
+    /**
+     * Translates user input into to_tsquery syntax. Only letter/digit runs survive, so no
+     * tsquery operators can be injected; stemming is left to to_tsquery itself.
+     *
+     * @return null if the input has no searchable terms
+     */
+    static String toTsQuery(String query) {
+        if (query == null) {
+            return null;
+        }
+        List<String> clauses = new ArrayList<>();
+        Matcher matcher = QUERY_CLAUSE.matcher(query.length() > MAX_QUERY_LENGTH ? query.substring(0, MAX_QUERY_LENGTH) : query);
+        while (matcher.find()) {
+            if (matcher.group(1) != null) {
+                List<String> words = words(matcher.group(1));
+                if (!words.isEmpty()) {
+                    clauses.add(words.size() == 1 ? words.get(0) : "(" + String.join(" <-> ", words) + ")");
+                }
+            } else {
+                List<String> words = words(matcher.group(2));
+                boolean prefix = matcher.group(2).endsWith("*");
+                for (int i = 0; i < words.size(); i++) {
+                    clauses.add(prefix && i == words.size() - 1 ? words.get(i) + ":*" : words.get(i));
+                }
+            }
+        }
+        return clauses.isEmpty() ? null : String.join(" & ", clauses);
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        Matcher matcher = WORD.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            words.add(matcher.group());
+        }
+        return words;
+    }
+
+    private void applyThreshold() {
+        // is_local = true: reverts at the end of the current transaction
+        jdbcTemplate.queryForObject("SELECT set_config('pg_trgm.word_similarity_threshold', :threshold, true)",
+                new MapSqlParameterSource("threshold", Double.toString(similarityThreshold)), String.class);
+    }
+
+    private String normalize(String query) {
+        if (query == null) {
+            return null;
+        }
+        String term = query.trim().toLowerCase(Locale.ROOT);
+        if (term.length() < MIN_TERM_LENGTH) {
+            return null;
+        }
+        return term.length() > MAX_TERM_LENGTH ? term.substring(0, MAX_TERM_LENGTH) : term;
+    }
+
+    private int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, maxResults));
+    }
+}
@@ -0,0 +1,22 @@
+package com.hms.service;
+
+import java.time.LocalDate;
+
+/**
+ * Thrown when a requested appointment slot is already taken, either by the schedule index
+ * check or by the uk_doctor_time / uk_patient_time constraints.
+ */
+public class SlotUnavailableException extends RuntimeException {
+
+    private final Long doctorId;
+    private final LocalDate date;
+
+    public SlotUnavailableException(String message, Long doctorId, LocalDate date) {
+        super(message);
+        this.doctorId = doctorId;
+        this.date = date;
+    }
+
+    public Long getDoctorId() { return doctorId; }
+    public LocalDate getDate() { return date; }
+}
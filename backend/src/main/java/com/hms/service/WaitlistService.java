@@ -0,0 +1,283 @@
+package com.hms.service;
+
+import com.hms.dto.WaitlistEntry;
+import com.hms.dto.WaitlistOffer;
+import com.hms.entity.Appointment;
+import com.hms.entity.Patient;
+import com.hms.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Back-fills cancelled slots from a per-doctor waitlist.
+ *
+ * Each doctor has a priority queue ordered emergency first, then by time on the list. When a
+ * cancellation commits, the freed slot is held in the {@link DoctorScheduleIndex} and offered
+ * to the first waiter whose date window covers it. The hold keeps regular bookings off the
+ * slot until the offer is accepted, declined or expires; on decline or expiry the waiter keeps
+ * their place in the queue and the slot moves on to the next one. Waitlist state is held in
+ * memory and does not survive a restart.
+ */
+@Service
+public class WaitlistService {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistService.class);
+    private static final Comparator<WaitlistEntry> PRIORITY = Comparator
+            .comparing(WaitlistEntry::emergency).reversed()
+            .thenComparing(WaitlistEntry::enqueuedAt)
+            .thenComparing(WaitlistEntry::id);
+
+    private final AppointmentService appointmentService;
+    private final UserService userService;
+    private final DoctorScheduleIndex scheduleIndex;
+    private final BookingLockManager bookingLocks;
+    private final Duration holdDuration;
+    private final AtomicLong ids = new AtomicLong();
+    // Guarded by synchronizing on the doctor's queue
+    private final Map<Long, TreeSet<WaitlistEntry>> queues = new ConcurrentHashMap<>();
+    private final Map<Long, PendingOffer> offers = new ConcurrentHashMap<>();
+
+    public WaitlistService(AppointmentService appointmentService, UserService userService,
+                           DoctorScheduleIndex scheduleIndex, BookingLockManager bookingLocks,
+                           @Value("${hms.appointments.waitlist.hold:PT15M}") Duration holdDuration) {
+        this.appointmentService = appointmentService;
+        this.userService = userService;
+        this.scheduleIndex = scheduleIndex;
+        this.bookingLocks = bookingLocks;
+        this.holdDuration = holdDuration;
+    }
+
+    public WaitlistEntry join(Long patientId, Long doctorId, LocalDate earliestDate, LocalDate latestDate, boolean emergency) {
+        if (latestDate.isBefore(earliestDate)) {
+            throw new IllegalArgumentException("latestDate must not be before earliestDate");
+        }
+        if (latestDate.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Waitlist window is already in the past");
+        }
+        TreeSet<WaitlistEntry> queue = queues.computeIfAbsent(doctorId, id -> new TreeSet<>(PRIORITY));
+        synchronized (queue) {
+            if (queue.stream().anyMatch(entry -> entry.patientId().equals(patientId))) {
+                throw new IllegalArgumentException("Patient is already on this doctor's waitlist");
+            }
+            WaitlistEntry entry = new WaitlistEntry(ids.incrementAndGet(), patientId, doctorId,
+                    earliestDate, latestDate, emergency, LocalDateTime.now());
+            queue.add(entry);
+            return entry;
+        }
+    }
+
+    public boolean leave(Long patientId, Long entryId) {
+        for (TreeSet<WaitlistEntry> queue : queues.values()) {
+            synchronized (queue) {
+                if (queue.removeIf(entry -> entry.id().equals(entryId) && entry.patientId().equals(patientId))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public List<WaitlistEntry> getEntriesForPatient(Long patientId) {
+        List<WaitlistEntry> entries = new ArrayList<>();
+        for (TreeSet<WaitlistEntry> queue : queues.values()) {
+            synchronized (queue) {
+                queue.stream().filter(entry -> entry.patientId().equals(patientId)).forEach(entries::add);
+            }
+        }
+        return entries;
+    }
+
+    public List<WaitlistOffer> getOffersForPatient(Long patientId) {
+        return offers.values().stream()
+                .map(PendingOffer::offer)
+                .filter(offer -> offer.patientId().equals(patientId))
+                .toList();
+    }
+
+    @TransactionalEventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.status() != Appointment.AppointmentStatus.CANCELLED) {
+            return;
+        }
+        if (LocalDateTime.of(event.date(), event.time()).isBefore(LocalDateTime.now())) {
+            return;
+        }
+        try {
+            if (!scheduleIndex.tryHold(event.doctorId(), event.date(), event.time(), event.durationMinutes())) {
+                // Already rebooked between commit and this listener
+                return;
+            }
+            Set<Long> passed = new HashSet<>();
+            passed.add(event.patientId());
+            offerHeldSlot(event.doctorId(), event.date(), event.time(), event.durationMinutes(), passed);
+        } catch (RuntimeException e) {
+            // The cancellation has committed; a failed offer must not surface as a failed request
+            log.warn("Could not offer cancelled slot of appointment {} to the waitlist", event.appointmentId(), e);
+        }
+    }
+
+    /**
+     * Books the offered slot for the patient. The offer is claimed only once the doctor-day
+     * lock is held, and the hold is dropped under that lock, so no other booking can slip in
+     * between. If the booking does not commit, the hold is put back and the offer either
+     * restored for another try or, when the slot cannot be booked for this patient, passed on.
+     */
+    @Transactional
+    public Appointment accept(Long offerId, Patient patient, String reason, String notes) {
+        PendingOffer pending = offers.get(offerId);
+        if (pending == null || !pending.offer().patientId().equals(patient.getId())) {
+            throw new RuntimeException("Waitlist offer not found");
+        }
+        WaitlistOffer offer = pending.offer();
+        if (offer.expiresAt().isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("Waitlist offer has expired");
+        }
+        User doctor = userService.findById(offer.doctorId())
+                .orElseThrow(() -> new RuntimeException("Doctor not found"));
+
+        bookingLocks.lockForTransaction(offer.doctorId(), offer.date());
+        // Expiry or a decline may have passed the offer on while this request waited
+        if (!offers.remove(offerId, pending)) {
+            throw new RuntimeException("Waitlist offer has expired");
+        }
+        AtomicBoolean slotUnavailable = new AtomicBoolean();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    restore(pending, slotUnavailable.get());
+                }
+            }
+        });
+        scheduleIndex.releaseHold(offer.doctorId(), offer.date(), offer.time(), offer.durationMinutes());
+        try {
+            return appointmentService.bookAppointment(patient, doctor, offer.date(), offer.time().toString(), reason, notes);
+        } catch (SlotUnavailableException e) {
+            slotUnavailable.set(true);
+            throw e;
+        }
+    }
+
+    public void decline(Long offerId, Long patientId) {
+        PendingOffer pending = offers.get(offerId);
+        if (pending == null || !pending.offer().patientId().equals(patientId)) {
+            throw new RuntimeException("Waitlist offer not found");
+        }
+        if (offers.remove(offerId, pending)) {
+            passOn(pending);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${hms.appointments.waitlist.expiry-check-interval:PT30S}")
+    public void expireOffers() {
+        LocalDateTime now = LocalDateTime.now();
+        for (PendingOffer pending : offers.values()) {
+            if (pending.offer().expiresAt().isBefore(now) && offers.remove(pending.offer().id(), pending)) {
+                log.debug("Waitlist offer {} expired", pending.offer().id());
+                passOn(pending);
+            }
+        }
+    }
+
+    /**
+     * Undoes the claim of an offer whose booking rolled back.
+     */
+    private void restore(PendingOffer pending, boolean slotUnavailable) {
+        WaitlistOffer offer = pending.offer();
+        try {
+            if (!scheduleIndex.tryHold(offer.doctorId(), offer.date(), offer.time(), offer.durationMinutes())) {
+                // Booked by someone else after all; the waiter keeps their place
+                requeue(pending.entry());
+            } else if (slotUnavailable) {
+                // e.g. the patient has another appointment at that time
+                passOn(pending);
+            } else {
+                offers.put(offer.id(), pending);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not restore waitlist offer {}", offer.id(), e);
+        }
+    }
+
+    private void passOn(PendingOffer pending) {
+        WaitlistOffer offer = pending.offer();
+        requeue(pending.entry());
+        pending.passedPatientIds().add(offer.patientId());
+        offerHeldSlot(offer.doctorId(), offer.date(), offer.time(), offer.durationMinutes(), pending.passedPatientIds());
+    }
+
+    /**
+     * Offers a slot already held in the schedule index to the best eligible waiter, or
+     * releases the hold if nobody can take it.
+     */
+    private void offerHeldSlot(Long doctorId, LocalDate date, LocalTime time, int durationMinutes, Set<Long> passed) {
+        WaitlistEntry entry = LocalDateTime.of(date, time).isAfter(LocalDateTime.now())
+                ? pollEligible(doctorId, date, passed)
+                : null;
+        if (entry == null) {
+            scheduleIndex.releaseHold(doctorId, date, time, durationMinutes);
+            return;
+        }
+        LocalDateTime expiresAt = LocalDateTime.now().plus(holdDuration);
+        WaitlistOffer offer = new WaitlistOffer(ids.incrementAndGet(), entry.id(), entry.patientId(), doctorId,
+                date, time, durationMinutes, expiresAt);
+        offers.put(offer.id(), new PendingOffer(offer, entry, passed));
+        log.info("Offered {} {} with doctor {} to waitlisted patient {} until {}",
+                date, time, doctorId, entry.patientId(), expiresAt);
+    }
+
+    private WaitlistEntry pollEligible(Long doctorId, LocalDate date, Set<Long> passed) {
+        TreeSet<WaitlistEntry> queue = queues.get(doctorId);
+        if (queue == null) {
+            return null;
+        }
+        LocalDate today = LocalDate.now();
+        synchronized (queue) {
+            Iterator<WaitlistEntry> it = queue.iterator();
+            while (it.hasNext()) {
+                WaitlistEntry entry = it.next();
+                if (entry.latestDate().isBefore(today)) {
+                    it.remove();
+                } else if (!date.isBefore(entry.earliestDate()) && !date.isAfter(entry.latestDate())
+                        && !passed.contains(entry.patientId())) {
+                    it.remove();
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void requeue(WaitlistEntry entry) {
+        TreeSet<WaitlistEntry> queue = queues.computeIfAbsent(entry.doctorId(), id -> new TreeSet<>(PRIORITY));
+        synchronized (queue) {
+            queue.add(entry);
+        }
+    }
+
+    private record PendingOffer(WaitlistOffer offer, WaitlistEntry entry, Set<Long> passedPatientIds) {
+    }
+}
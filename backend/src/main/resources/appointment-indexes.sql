@@ -0,0 +1,13 @@
+-- Booking constraints for appointments that Hibernate annotations cannot express
+
+-- A doctor or a patient holds at most one active appointment at a given start time. Cancelled,
+-- rescheduled and no-show rows free their time, so it can be booked again (waitlist back-fill,
+-- re-booking after a cancellation). The status list must agree with the occupied-slot queries
+-- in AppointmentRepository, which feed DoctorScheduleIndex
+ALTER TABLE appointments DROP CONSTRAINT IF EXISTS uk_doctor_time;
+ALTER TABLE appointments DROP CONSTRAINT IF EXISTS uk_patient_time;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_doctor_time ON appointments (doctor_id, appointment_date, appointment_time)
+    WHERE status NOT IN ('CANCELLED', 'NO_SHOW', 'RESCHEDULED');
+CREATE UNIQUE INDEX IF NOT EXISTS uk_patient_time ON appointments (patient_id, appointment_date, appointment_time)
+    WHERE status NOT IN ('CANCELLED', 'NO_SHOW', 'RESCHEDULED');
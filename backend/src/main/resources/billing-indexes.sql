@@ -0,0 +1,17 @@
+-- Constraints for the billing jobs that Hibernate annotations cannot express
+
+-- At most one consultation bill per appointment: makes the invoicing run (InvoicingJob) safe to
+-- re-run after a crash or concurrently on two nodes
+CREATE UNIQUE INDEX IF NOT EXISTS uk_bill_consultation_appointment ON bills (appointment_id)
+    WHERE bill_type = 'CONSULTATION' AND appointment_id IS NOT NULL;
+
+-- Open bills by patient: the dunning run (DunningJob) streams overdue bills in this order
+CREATE INDEX IF NOT EXISTS idx_bill_open_patient ON bills (patient_id, id)
+    WHERE payment_status IN ('PENDING', 'PARTIALLY_PAID', 'OVERDUE');
+
+-- Bills waiting for an insurance claim, by provider: the claims export (ClaimExportJob) streams
+-- them in this order. The predicate must agree with ClaimExportJob.CLAIMABLE
+CREATE INDEX IF NOT EXISTS idx_bill_claimable ON bills (insurance_provider, id)
+    WHERE is_insurance_covered = true AND insurance_provider IS NOT NULL
+      AND payment_status IN ('PENDING', 'OVERDUE')
+      AND (insurance_claim_status IS NULL OR insurance_claim_status = 'PENDING');
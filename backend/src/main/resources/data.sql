@@ -1,20 +1,36 @@
 -- Persistent Seed Data for PostgreSQL
 -- Password hash: BCrypt for 'password' -> $2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi
 
+-- 0. Keep the shared id sequence ahead of rows created while ids were IDENTITY columns
+SELECT setval('hms_id_seq', GREATEST(
+    (SELECT last_value FROM hms_id_seq),
+    (SELECT COALESCE(MAX(id), 0) FROM users),
+    (SELECT COALESCE(MAX(id), 0) FROM departments),
+    (SELECT COALESCE(MAX(id), 0) FROM patients),
+    (SELECT COALESCE(MAX(id), 0) FROM appointments),
+    (SELECT COALESCE(MAX(id), 0) FROM medical_records),
+    (SELECT COALESCE(MAX(id), 0) FROM prescriptions),
+    (SELECT COALESCE(MAX(id), 0) FROM bills)));
+
 -- 1. Insert Hardcoded Staff (ADMIN, DOCTOR, NURSE)
--- Using ON CONFLICT (email) DO NOTHING to ensure idempotence across restarts
-INSERT INTO users (first_name, last_name, email, password, phone_number, role, is_verified, is_active, is_deleted, login_attempts, created_at, updated_at) 
-VALUES
-('Admin', 'System', 'admin@hms.com', '$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi', '+1-555-0100', 'ADMIN', TRUE, TRUE, FALSE, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-('Dr. John', 'Doe', 'doctor@hms.com', '$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi', '+1-555-0200', 'DOCTOR', TRUE, TRUE, FALSE, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-('Nurse Jane', 'Smith', 'nurse@hms.com', '$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi', '+1-555-0300', 'NURSE', TRUE, TRUE, FALSE, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
-ON CONFLICT (email) DO NOTHING;
+-- INSERT ... SELECT ... WHERE NOT EXISTS keeps this idempotent across restarts and only calls
+-- nextval for missing rows; every nextval advances hms_id_seq by a whole 50-id block
+INSERT INTO users (id, first_name, last_name, email, password, phone_number, role, is_verified, is_active, is_deleted, login_attempts, created_at, updated_at)
+SELECT nextval('hms_id_seq'), 'Admin', 'System', 'admin@hms.com', '$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi', '+1-555-0100', 'ADMIN', TRUE, TRUE, FALSE, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'admin@hms.com');
+
+INSERT INTO users (id, first_name, last_name, email, password, phone_number, role, is_verified, is_active, is_deleted, login_attempts, created_at, updated_at)
+SELECT nextval('hms_id_seq'), 'Dr. John', 'Doe', 'doctor@hms.com', '$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi', '+1-555-0200', 'DOCTOR', TRUE, TRUE, FALSE, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'doctor@hms.com');
+
+INSERT INTO users (id, first_name, last_name, email, password, phone_number, role, is_verified, is_active, is_deleted, login_attempts, created_at, updated_at)
+SELECT nextval('hms_id_seq'), 'Nurse Jane', 'Smith', 'nurse@hms.com', '$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi', '+1-555-0300', 'NURSE', TRUE, TRUE, FALSE, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'nurse@hms.com');
 
 -- 2. Insert Sample Patient (Optional, patients will register themselves)
-INSERT INTO users (first_name, last_name, email, password, phone_number, role, is_verified, is_active, is_deleted, login_attempts, created_at, updated_at) 
-VALUES
-('Patient', 'Test', 'patient@hms.com', '$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi', '+1-555-0400', 'PATIENT', TRUE, TRUE, FALSE, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
-ON CONFLICT (email) DO NOTHING;
+INSERT INTO users (id, first_name, last_name, email, password, phone_number, role, is_verified, is_active, is_deleted, login_attempts, created_at, updated_at)
+SELECT nextval('hms_id_seq'), 'Patient', 'Test', 'patient@hms.com', '$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi', '+1-555-0400', 'PATIENT', TRUE, TRUE, FALSE, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = 'patient@hms.com');
 
 -- 3. Insert Departments
 -- Using ON CONFLICT (id) DO NOTHING isn't possible here without IDs, so we use name if unique or just rely on manual management
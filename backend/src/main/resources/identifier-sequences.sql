@@ -0,0 +1,6 @@
+-- Sequences behind BusinessIdGenerator. Each nextval reserves INCREMENT BY numbers for one app
+-- node, so this is the block size; START WITH must equal it (nextval returns the top of a block).
+-- The generator reads the increment on every reservation, so it can be changed with ALTER SEQUENCE.
+CREATE SEQUENCE IF NOT EXISTS hms_patient_number_seq START WITH 100 INCREMENT BY 100;
+CREATE SEQUENCE IF NOT EXISTS hms_bill_number_seq START WITH 1000 INCREMENT BY 1000;
+CREATE SEQUENCE IF NOT EXISTS hms_prescription_number_seq START WITH 500 INCREMENT BY 500;
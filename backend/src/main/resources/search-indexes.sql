@@ -0,0 +1,18 @@
+-- Trigram indexes for the staff search endpoints (SearchService)
+-- The expressions must match SearchService's queries exactly. They need the pg_trgm extension,
+-- which the application role is usually not allowed to create: it is installed once per
+-- database by the DBA step in db/extensions.sql, and startup fails here if it is missing.
+
+CREATE INDEX IF NOT EXISTS idx_users_name_trgm ON users USING gin (lower(first_name || ' ' || last_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_email_trgm ON users USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_patients_patient_id_trgm ON patients USING gin (lower(patient_id) gin_trgm_ops);
+
+-- Full-text index over medical record narratives, maintained by PostgreSQL on every insert/update
+ALTER TABLE medical_records ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('english', coalesce(chief_complaint, '')), 'A') ||
+    setweight(to_tsvector('english', coalesce(assessment, '')), 'B') ||
+    setweight(to_tsvector('english', coalesce(plan, '')), 'C') ||
+    setweight(to_tsvector('english', coalesce(present_illness, '') || ' ' || coalesce(progress_notes, '')), 'D')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_medical_records_search ON medical_records USING gin (search_vector);
@@ -0,0 +1,75 @@
+package com.hms;
+
+import com.hms.entity.Patient;
+import com.hms.entity.User;
+import com.hms.service.AppointmentService;
+import com.hms.service.MedicalRecordService;
+import com.hms.service.PrescriptionService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The "recent N" dashboard accessors must read N rows from the database, not a patient's
+ * whole history trimmed in Java.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import({TestcontainersConfiguration.class, SqlRecorder.class})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RecentQueriesLimitTest {
+
+    private static final int HISTORY_DAYS = 40;
+    private static final int LIMIT = 5;
+
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private MedicalRecordService medicalRecordService;
+    @Autowired
+    private PrescriptionService prescriptionService;
+
+    private Patient patient;
+
+    @BeforeAll
+    void seed() {
+        User doctor = fixtures.doctors(1).get(0);
+        patient = fixtures.patients(1).get(0);
+        fixtures.history(patient, doctor, HISTORY_DAYS);
+    }
+
+    @Test
+    void recentAppointmentsReadOnlyTheLimit() {
+        assertReadsOnlyTheLimit(() -> appointmentService.getRecentAppointmentsForPatient(patient.getId(), LIMIT));
+    }
+
+    @Test
+    void recentMedicalRecordsReadOnlyTheLimit() {
+        assertReadsOnlyTheLimit(() -> medicalRecordService.getRecentMedicalRecordsForPatient(patient.getId(), LIMIT));
+    }
+
+    @Test
+    void recentPrescriptionsReadOnlyTheLimit() {
+        assertReadsOnlyTheLimit(() -> prescriptionService.getRecentPrescriptionsForPatient(patient.getId(), LIMIT));
+    }
+
+    private static void assertReadsOnlyTheLimit(Supplier<List<?>> recent) {
+        List<?>[] result = new List<?>[1];
+        SqlRecorder.Recording recording = SqlRecorder.record(() -> result[0] = recent.get());
+
+        assertThat(result[0]).hasSize(LIMIT);
+        assertThat(recording.statements()).hasSize(1);
+        assertThat(recording.rowsRead()).isEqualTo(LIMIT);
+    }
+}
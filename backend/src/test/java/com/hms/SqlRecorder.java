@@ -0,0 +1,148 @@
+package com.hms;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the SQL statements a block of code sends and the rows it reads back, at the JDBC
+ * level so Hibernate, JdbcTemplate and NamedParameterJdbcTemplate are all counted. Only the
+ * calling thread and the tasks it hands to executor beans (such as the dashboard's fan-out)
+ * are recorded, so scheduled jobs running meanwhile do not show up.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class SqlRecorder {
+
+    private static final ThreadLocal<Recording> CURRENT = new ThreadLocal<>();
+
+    public static final class Recording {
+        private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicLong rowsRead = new AtomicLong();
+
+        public List<String> statements() { return statements; }
+        public long rowsRead() { return rowsRead.get(); }
+    }
+
+    public static Recording record(Runnable action) {
+        Recording recording = new Recording();
+        CURRENT.set(recording);
+        try {
+            action.run();
+        } finally {
+            CURRENT.remove();
+        }
+        return recording;
+    }
+
+    @Bean
+    static BeanPostProcessor sqlRecordingDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ExecutorService executor) {
+                    return propagating(executor);
+                }
+                return bean instanceof DataSource dataSource ? wrap(dataSource, DataSource.class) : bean;
+            }
+        };
+    }
+
+    private static <T> T wrap(T target, Class<T> type) {
+        Object proxy = Proxy.newProxyInstance(SqlRecorder.class.getClassLoader(), new Class<?>[] {type},
+                (self, method, args) -> {
+                    Recording recording = CURRENT.get();
+                    String name = method.getName();
+                    if (recording != null && args != null && args.length > 0 && args[0] instanceof String sql
+                            && (name.startsWith("prepare") || (target instanceof Statement && name.startsWith("execute")))) {
+                        recording.statements.add(sql);
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (recording != null && target instanceof ResultSet && name.equals("next") && Boolean.TRUE.equals(result)) {
+                        recording.rowsRead.incrementAndGet();
+                    }
+                    return wrapResult(result, method.getReturnType());
+                });
+        return type.cast(proxy);
+    }
+
+    /**
+     * Runs every task submitted to the executor under the submitting thread's recording.
+     */
+    private static ExecutorService propagating(ExecutorService target) {
+        Object proxy = Proxy.newProxyInstance(SqlRecorder.class.getClassLoader(), new Class<?>[] {ExecutorService.class},
+                (self, method, args) -> {
+                    Recording recording = CURRENT.get();
+                    if (recording != null && args != null) {
+                        for (int i = 0; i < args.length; i++) {
+                            args[i] = carry(args[i], recording);
+                        }
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        return (ExecutorService) proxy;
+    }
+
+    private static Object carry(Object task, Recording recording) {
+        if (task instanceof Runnable runnable) {
+            return (Runnable) () -> {
+                Recording previous = CURRENT.get();
+                CURRENT.set(recording);
+                try {
+                    runnable.run();
+                } finally {
+                    CURRENT.set(previous);
+                }
+            };
+        }
+        if (task instanceof Callable<?> callable) {
+            return (Callable<?>) () -> {
+                Recording previous = CURRENT.get();
+                CURRENT.set(recording);
+                try {
+                    return callable.call();
+                } finally {
+                    CURRENT.set(previous);
+                }
+            };
+        }
+        if (task instanceof Collection<?> tasks) {
+            return tasks.stream().map(each -> carry(each, recording)).toList();
+        }
+        return task;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object wrapResult(Object result, Class<?> returnType) {
+        if (result == null || !returnType.isInterface()) {
+            return result;
+        }
+        if (returnType == Connection.class || Statement.class.isAssignableFrom(returnType)
+                || returnType == ResultSet.class) {
+            return wrap(result, (Class) returnType);
+        }
+        return result;
+    }
+}
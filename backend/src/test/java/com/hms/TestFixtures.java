@@ -0,0 +1,136 @@
+package com.hms;
+
+import com.hms.entity.Appointment;
+import com.hms.entity.MedicalRecord;
+import com.hms.entity.Patient;
+import com.hms.entity.Prescription;
+import com.hms.entity.User;
+import com.hms.repository.AppointmentRepository;
+import com.hms.repository.MedicalRecordRepository;
+import com.hms.repository.PatientRepository;
+import com.hms.repository.PrescriptionRepository;
+import com.hms.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Creates doctors and patients with unique emails and patient ids, so tests sharing a database
+ * never collide with each other or with data.sql.
+ */
+@Component
+public class TestFixtures {
+
+    private static final String PASSWORD = "$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi";
+
+    private final UserRepository userRepository;
+    private final PatientRepository patientRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final MedicalRecordRepository medicalRecordRepository;
+    private final PrescriptionRepository prescriptionRepository;
+
+    public TestFixtures(UserRepository userRepository, PatientRepository patientRepository,
+                        AppointmentRepository appointmentRepository, MedicalRecordRepository medicalRecordRepository,
+                        PrescriptionRepository prescriptionRepository) {
+        this.userRepository = userRepository;
+        this.patientRepository = patientRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.medicalRecordRepository = medicalRecordRepository;
+        this.prescriptionRepository = prescriptionRepository;
+    }
+
+    public List<User> doctors(int count) {
+        List<User> doctors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User doctor = user(User.UserRole.DOCTOR);
+            doctor.setSpecialization("General Medicine");
+            doctor.setConsultationFee(new BigDecimal("50.00"));
+            doctors.add(doctor);
+        }
+        return userRepository.saveAll(doctors);
+    }
+
+    public List<Patient> patients(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(user(User.UserRole.PATIENT));
+        }
+        List<Patient> patients = new ArrayList<>(count);
+        for (User user : userRepository.saveAll(users)) {
+            Patient patient = new Patient();
+            patient.setUser(user);
+            patient.setPatientId("T" + user.getId());
+            patients.add(patient);
+        }
+        return patientRepository.saveAll(patients);
+    }
+
+    /**
+     * Gives the patient one appointment, medical record and prescription with the doctor on
+     * each of the {@code days} days before today.
+     */
+    public void history(Patient patient, User doctor, int days) {
+        List<Appointment> appointments = new ArrayList<>(days);
+        List<MedicalRecord> records = new ArrayList<>(days);
+        List<Prescription> prescriptions = new ArrayList<>(days);
+        for (int i = 1; i <= days; i++) {
+            LocalDate date = LocalDate.now().minusDays(i);
+
+            Appointment appointment = new Appointment();
+            appointment.setPatient(patient);
+            appointment.setDoctor(doctor);
+            appointment.setAppointmentDate(date);
+            appointment.setAppointmentTime(LocalTime.of(10, 0));
+            appointment.setDurationMinutes(30);
+            appointment.setStatus(Appointment.AppointmentStatus.COMPLETED);
+            appointment.setReason("Check-up " + i);
+            appointments.add(appointment);
+
+            MedicalRecord record = new MedicalRecord();
+            record.setPatient(patient);
+            record.setDoctor(doctor);
+            record.setRecordDate(date);
+            record.setRecordType(MedicalRecord.RecordType.CONSULTATION);
+            record.setChiefComplaint("Headache");
+            record.setAssessment("Tension headache");
+            record.setPlan("Rest and fluids");
+            records.add(record);
+
+            Prescription prescription = new Prescription();
+            prescription.setPatient(patient);
+            prescription.setDoctor(doctor);
+            prescription.setPrescriptionDate(date);
+            prescription.setMedicationName("Paracetamol");
+            prescription.setDosage("500mg");
+            prescription.setFrequency("Twice daily");
+            prescription.setDurationDays(5);
+            prescription.setTotalQuantity(10);
+            prescription.setPrescribedQuantity(10);
+            prescription.setInstructions("After meals");
+            prescription.setStartDate(date);
+            prescription.setEndDate(date.plusDays(5));
+            prescription.setStatus(Prescription.PrescriptionStatus.PRESCRIBED);
+            prescriptions.add(prescription);
+        }
+        appointmentRepository.saveAll(appointments);
+        medicalRecordRepository.saveAll(records);
+        prescriptionRepository.saveAll(prescriptions);
+    }
+
+    private static User user(User.UserRole role) {
+        String key = UUID.randomUUID().toString();
+        User user = new User();
+        user.setFirstName(role.name().charAt(0) + role.name().substring(1).toLowerCase());
+        user.setLastName(key.substring(0, 8));
+        user.setEmail(key + "@test.hms.com");
+        user.setPassword(PASSWORD);
+        user.setRole(role);
+        user.setIsVerified(true);
+        return user;
+    }
+}
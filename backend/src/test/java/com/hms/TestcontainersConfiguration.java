@@ -0,0 +1,24 @@
+package com.hms;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.MountableFile;
+
+/**
+ * PostgreSQL for integration tests and benchmarks; the container is shared by every test
+ * context that imports this configuration and replaces the datasource from application.yml.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class TestcontainersConfiguration {
+
+    @Bean
+    @ServiceConnection
+    PostgreSQLContainer<?> postgresContainer() {
+        // Same DBA step as a real database: backend/db/extensions.sql
+        return new PostgreSQLContainer<>("postgres:16-alpine")
+                .withCopyFileToContainer(MountableFile.forHostPath("db/extensions.sql"),
+                        "/docker-entrypoint-initdb.d/01-extensions.sql");
+    }
+}
@@ -0,0 +1,120 @@
+package com.hms.benchmark;
+
+import com.hms.TestFixtures;
+import com.hms.TestcontainersConfiguration;
+import com.hms.entity.Patient;
+import com.hms.entity.User;
+import com.hms.service.AppointmentService;
+import com.hms.service.SlotUnavailableException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Booking throughput and conflict rate with 1, 8 and 64 concurrent clients competing for the
+ * same doctors' slots. Every attempt books a random half-hour slot of a random doctor on one
+ * of a few days; each client count gets its own days, and every attempt its own patient, so a
+ * conflict is always two clients wanting the same doctor slot.
+ *
+ *   mvn -Pbenchmark test -Dtest=BookingContentionBenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BookingContentionBenchmark {
+
+    private static final int DOCTORS = 10;
+    private static final int DAYS = 5;
+    private static final int ATTEMPTS = 4_000;
+    private static final int SLOTS_PER_DAY = 16;  // 09:00 to 16:30
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<User> doctors;
+    private List<Patient> patients;
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeAll
+    void seed() {
+        doctors = fixtures.doctors(DOCTORS);
+        patients = fixtures.patients(ATTEMPTS);
+    }
+
+    @ParameterizedTest(name = "{0} clients")
+    @ValueSource(ints = {1, 8, 64})
+    void bookConcurrently(int clients) throws Exception {
+        LocalDate firstDay = LocalDate.now().plusDays(30L + (long) runs.getAndIncrement() * DAYS);
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<?>> results = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            long seed = c;
+            results.add(executor.submit(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                start.await();
+                for (int attempt = next.getAndIncrement(); attempt < ATTEMPTS; attempt = next.getAndIncrement()) {
+                    User doctor = doctors.get(random.nextInt(DOCTORS));
+                    LocalDate date = firstDay.plusDays(random.nextInt(DAYS));
+                    LocalTime time = LocalTime.of(9, 0).plusMinutes(30L * random.nextInt(SLOTS_PER_DAY));
+                    try {
+                        appointmentService.bookAppointment(patients.get(attempt), doctor, date, time.toString(),
+                                "Benchmark", null);
+                        booked.incrementAndGet();
+                    } catch (SlotUnavailableException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        executor.shutdown();
+
+        System.out.printf("%3d clients: %,8.0f bookings/s %,8.0f attempts/s %6.1f%% conflicts (%d booked, %d rejected)%n",
+                clients, booked.get() / seconds, ATTEMPTS / seconds, 100.0 * conflicts.get() / ATTEMPTS,
+                booked.get(), conflicts.get());
+
+        assertThat(booked.get() + conflicts.get()).isEqualTo(ATTEMPTS);
+        Integer rows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM appointments WHERE appointment_date BETWEEN ? AND ? AND reason = 'Benchmark'",
+                Integer.class, firstDay, firstDay.plusDays(DAYS - 1));
+        assertThat(rows).isEqualTo(booked.get());
+        assertThat(booked.get()).isLessThanOrEqualTo(DOCTORS * DAYS * SLOTS_PER_DAY);
+    }
+}
@@ -0,0 +1,159 @@
+package com.hms.benchmark;
+
+import com.hms.service.BusinessIdGenerator;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * BusinessIdGenerator under contention: {@value #THREADS} threads drawing bill numbers with one
+ * nextval round trip per id, with block reservation on one generator, and with two generators
+ * standing in for two app nodes. Scores are ids/s across all threads. The database is a
+ * PostgreSQL container with identifier-sequences.sql applied, behind a pool the size of the
+ * application's.
+ *
+ * The test first checks that the two nodes never hand out a number twice and that every
+ * thread sees increasing numbers, then runs JMH:
+ *
+ *   mvn -Pbenchmark test -Dtest=BusinessIdBenchmark
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(BusinessIdBenchmark.THREADS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BusinessIdBenchmark {
+
+    static final int THREADS = 64;
+    private static final int POOL_SIZE = 20;
+    private static final int IDS_PER_THREAD = 20_000;
+
+    private PostgreSQLContainer<?> postgres;
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private BusinessIdGenerator oneNode;
+    private BusinessIdGenerator[] twoNodes;
+    private final AtomicInteger threadsSeen = new AtomicInteger();
+
+    /**
+     * Which of the two generators a benchmark thread uses; threads are split evenly.
+     */
+    @State(Scope.Thread)
+    public static class Node {
+
+        int index;
+
+        @Setup
+        public void assign(BusinessIdBenchmark benchmark) {
+            index = benchmark.threadsSeen.getAndIncrement() % 2;
+        }
+    }
+
+    @Setup
+    public void start() {
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(postgres.getJdbcUrl());
+        config.setUsername(postgres.getUsername());
+        config.setPassword(postgres.getPassword());
+        config.setMaximumPoolSize(POOL_SIZE);
+        dataSource = new HikariDataSource(config);
+        new ResourceDatabasePopulator(new ClassPathResource("identifier-sequences.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS bench_single_id_seq");
+        oneNode = new BusinessIdGenerator(jdbcTemplate);
+        twoNodes = new BusinessIdGenerator[] {new BusinessIdGenerator(jdbcTemplate), new BusinessIdGenerator(jdbcTemplate)};
+    }
+
+    @TearDown
+    public void stop() {
+        dataSource.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public Long nextvalPerId() {
+        return jdbcTemplate.queryForObject("SELECT nextval('bench_single_id_seq')", Long.class);
+    }
+
+    @Benchmark
+    public long blockReservationOneNode() {
+        return oneNode.nextValue(BusinessIdGenerator.Kind.BILL);
+    }
+
+    @Benchmark
+    public long blockReservationTwoNodes(Node node) {
+        return twoNodes[node.index].nextValue(BusinessIdGenerator.Kind.BILL);
+    }
+
+    @Test
+    void twoNodesNeverRepeatANumber() throws Exception {
+        start();
+        try {
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            List<Future<long[]>> results = new ArrayList<>(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                BusinessIdGenerator node = twoNodes[t % 2];
+                results.add(executor.submit(() -> {
+                    long[] ids = new long[IDS_PER_THREAD];
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        ids[i] = node.nextValue(BusinessIdGenerator.Kind.BILL);
+                    }
+                    return ids;
+                }));
+            }
+            long[] all = new long[THREADS * IDS_PER_THREAD];
+            int offset = 0;
+            for (Future<long[]> result : results) {
+                long[] ids = result.get();
+                for (int i = 1; i < ids.length; i++) {
+                    assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+                }
+                System.arraycopy(ids, 0, all, offset, ids.length);
+                offset += ids.length;
+            }
+            executor.shutdown();
+            assertThat(Arrays.stream(all).distinct().count()).isEqualTo(all.length);
+        } finally {
+            stop();
+        }
+
+        new Runner(new OptionsBuilder()
+                .include(BusinessIdBenchmark.class.getName())
+                .build()).run();
+    }
+}
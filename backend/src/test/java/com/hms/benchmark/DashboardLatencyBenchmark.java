@@ -0,0 +1,101 @@
+package com.hms.benchmark;
+
+import com.hms.TestFixtures;
+import com.hms.TestcontainersConfiguration;
+import com.hms.entity.Patient;
+import com.hms.entity.User;
+import com.hms.service.DashboardService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Patient dashboard latency with 200 concurrent users, each loading their own dashboard over
+ * and over. Reports p50, p99 and max latency and how many dashboards came back with a part
+ * missing.
+ *
+ *   mvn -Pbenchmark test -Dtest=DashboardLatencyBenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class DashboardLatencyBenchmark {
+
+    private static final int USERS = 200;
+    private static final int HISTORY_DAYS = 60;
+    private static final int WARMUP_REQUESTS = 5;
+    private static final int REQUESTS_PER_USER = 50;
+
+    @Autowired
+    private DashboardService dashboardService;
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Test
+    void dashboardsUnderConcurrentLoad() throws Exception {
+        List<User> doctors = fixtures.doctors(USERS);
+        List<Patient> patients = fixtures.patients(USERS);
+        for (int i = 0; i < USERS; i++) {
+            fixtures.history(patients.get(i), doctors.get(i), HISTORY_DAYS);
+        }
+
+        long[] latencies = new long[USERS * REQUESTS_PER_USER];
+        AtomicInteger degraded = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService users = Executors.newFixedThreadPool(USERS);
+        List<Future<?>> results = new ArrayList<>(USERS);
+        for (int u = 0; u < USERS; u++) {
+            int user = u;
+            Long patientId = patients.get(u).getId();
+            results.add(users.submit(() -> {
+                start.await();
+                for (int i = 0; i < WARMUP_REQUESTS; i++) {
+                    dashboardService.getPatientDashboard(patientId);
+                }
+                for (int i = 0; i < REQUESTS_PER_USER; i++) {
+                    long started = System.nanoTime();
+                    Map<String, Object> dashboard = dashboardService.getPatientDashboard(patientId);
+                    latencies[user * REQUESTS_PER_USER + i] = System.nanoTime() - started;
+                    if (!((List<?>) dashboard.get("unavailable")).isEmpty()) {
+                        degraded.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        users.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("%d users: p50 %.1f ms, p99 %.1f ms, max %.1f ms, %,.0f dashboards/s, %d of %d degraded%n",
+                USERS, percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6,
+                USERS * (WARMUP_REQUESTS + REQUESTS_PER_USER) / seconds, degraded.get(), latencies.length);
+
+        assertThat(latencies[0]).isPositive();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.ceil(p * sorted.length) - 1] / 1e6;
+    }
+}
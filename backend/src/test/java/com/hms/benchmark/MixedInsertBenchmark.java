@@ -0,0 +1,206 @@
+package com.hms.benchmark;
+
+import com.hms.TestFixtures;
+import com.hms.TestcontainersConfiguration;
+import com.hms.entity.Appointment;
+import com.hms.entity.Bill;
+import com.hms.entity.Patient;
+import com.hms.entity.User;
+import com.hms.repository.AppointmentRepository;
+import com.hms.repository.BillRepository;
+import com.hms.repository.PatientRepository;
+import com.hms.repository.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Insert throughput for 100k mixed entities (users, patients, appointments and bills, a
+ * quarter each) with IDENTITY-style and pooled-sequence id generation.
+ *
+ * "Before" replays what Hibernate sent while ids were IDENTITY columns: one unbatched
+ * {@code INSERT ... RETURNING id} round trip per entity. "After" saves the same entities
+ * through the repositories, which take ids from hms_id_seq blocks and send JDBC batches.
+ * Both commit every {@value #CHUNK} patients' worth of rows.
+ *
+ *   mvn -Pbenchmark test -Dtest=MixedInsertBenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class MixedInsertBenchmark {
+
+    private static final int ENTITIES = 100_000;
+    private static final int PATIENTS = ENTITIES / 4;
+    private static final int CHUNK = 250;
+    private static final int SLOTS_PER_DAY = 16;
+    private static final String PASSWORD = "$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi";
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private BillRepository billRepository;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void insertMixedEntities() {
+        User doctor = fixtures.doctors(1).get(0);
+        // Each run books its own days so the two runs never share a doctor slot
+        LocalDate identityDays = LocalDate.now().plusYears(5);
+        LocalDate sequenceDays = identityDays.plusDays(PATIENTS / SLOTS_PER_DAY + 1);
+
+        long identityNanos = timed(() -> insertWithIdentityRoundTrips(doctor, identityDays));
+        long sequenceNanos = timed(() -> insertWithRepositories(doctor, sequenceDays));
+
+        report("IDENTITY (before)", identityNanos);
+        report("pooled sequence (after)", sequenceNanos);
+        System.out.printf("speedup %.1fx%n", (double) identityNanos / sequenceNanos);
+
+        Integer bills = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM bills WHERE item_name = 'Insert benchmark'", Integer.class);
+        assertThat(bills).isEqualTo(2 * PATIENTS);
+    }
+
+    private void insertWithIdentityRoundTrips(User doctor, LocalDate firstDay) {
+        for (int start = 0; start < PATIENTS; start += CHUNK) {
+            int from = start;
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = from; i < Math.min(from + CHUNK, PATIENTS); i++) {
+                    String key = UUID.randomUUID().toString();
+                    Long userId = jdbcTemplate.queryForObject("""
+                            INSERT INTO users (id, first_name, last_name, email, password, role, is_verified,
+                                               login_attempts, is_active, is_deleted, version, created_at, updated_at)
+                            VALUES (nextval('hms_id_seq'), 'Patient', ?, ?, ?, 'PATIENT', TRUE, 0, TRUE, FALSE, 0,
+                                    CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+                            RETURNING id""", Long.class, key.substring(0, 8), key + "@test.hms.com", PASSWORD);
+                    Long patientId = jdbcTemplate.queryForObject("""
+                            INSERT INTO patients (id, user_id, patient_id, is_active, is_deleted, version,
+                                                  created_at, updated_at)
+                            VALUES (nextval('hms_id_seq'), ?, ?, TRUE, FALSE, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+                            RETURNING id""", Long.class, userId, "T" + userId);
+                    Long appointmentId = jdbcTemplate.queryForObject("""
+                            INSERT INTO appointments (id, patient_id, doctor_id, appointment_date, appointment_time,
+                                                      duration_minutes, status, reason, is_emergency, is_active,
+                                                      is_deleted, version, created_at, updated_at)
+                            VALUES (nextval('hms_id_seq'), ?, ?, ?, ?, 30, 'COMPLETED', 'Insert benchmark', FALSE,
+                                    TRUE, FALSE, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+                            RETURNING id""", Long.class, patientId, doctor.getId(), dayOf(firstDay, i), slotOf(i));
+                    jdbcTemplate.queryForObject("""
+                            INSERT INTO bills (id, patient_id, appointment_id, bill_number, bill_date, due_date,
+                                               bill_type, item_name, quantity, unit_price, total_amount, amount,
+                                               tax_amount, discount_amount, final_amount, paid_amount, status,
+                                               payment_status, is_insurance_covered, is_active, is_deleted, version,
+                                               created_at, updated_at)
+                            VALUES (nextval('hms_id_seq'), ?, ?, ?, CURRENT_DATE, CURRENT_DATE + 30, 'CONSULTATION',
+                                    'Insert benchmark', 1, 50.00, 50.00, 50.00, 0.00, 0.00, 50.00, 0.00, 'PENDING',
+                                    'PENDING', FALSE, TRUE, FALSE, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+                            RETURNING id""", Long.class, patientId, appointmentId, "BENCH-" + key);
+                }
+            });
+        }
+    }
+
+    private void insertWithRepositories(User doctor, LocalDate firstDay) {
+        for (int start = 0; start < PATIENTS; start += CHUNK) {
+            int from = start;
+            int to = Math.min(from + CHUNK, PATIENTS);
+            transactionTemplate.executeWithoutResult(status -> {
+                List<User> users = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    String key = UUID.randomUUID().toString();
+                    User user = new User();
+                    user.setFirstName("Patient");
+                    user.setLastName(key.substring(0, 8));
+                    user.setEmail(key + "@test.hms.com");
+                    user.setPassword(PASSWORD);
+                    user.setRole(User.UserRole.PATIENT);
+                    user.setIsVerified(true);
+                    users.add(user);
+                }
+                userRepository.saveAll(users);
+
+                List<Patient> patients = new ArrayList<>(users.size());
+                List<Appointment> appointments = new ArrayList<>(users.size());
+                List<Bill> bills = new ArrayList<>(users.size());
+                for (int n = 0; n < users.size(); n++) {
+                    Patient patient = new Patient();
+                    patient.setUser(users.get(n));
+                    patient.setPatientId("T" + users.get(n).getId());
+                    patients.add(patient);
+
+                    Appointment appointment = new Appointment();
+                    appointment.setPatient(patient);
+                    appointment.setDoctor(doctor);
+                    appointment.setAppointmentDate(dayOf(firstDay, from + n));
+                    appointment.setAppointmentTime(slotOf(from + n));
+                    appointment.setDurationMinutes(30);
+                    appointment.setStatus(Appointment.AppointmentStatus.COMPLETED);
+                    appointment.setReason("Insert benchmark");
+                    appointment.setIsEmergency(false);
+                    appointments.add(appointment);
+
+                    Bill bill = new Bill();
+                    bill.setPatient(patient);
+                    bill.setAppointment(appointment);
+                    bill.setBillNumber("BENCH-" + UUID.randomUUID());
+                    bill.setBillDate(LocalDate.now());
+                    bill.setDueDate(LocalDate.now().plusDays(30));
+                    bill.setBillType(Bill.BillType.CONSULTATION);
+                    bill.setItemName("Insert benchmark");
+                    bill.setQuantity(1);
+                    bill.setUnitPrice(new BigDecimal("50.00"));
+                    bill.calculateAmounts();
+                    bill.setStatus(Bill.BillStatus.PENDING);
+                    bill.setPaymentStatus(Bill.PaymentStatus.PENDING);
+                    bills.add(bill);
+                }
+                patientRepository.saveAll(patients);
+                appointmentRepository.saveAll(appointments);
+                billRepository.saveAll(bills);
+            });
+        }
+    }
+
+    private static LocalDate dayOf(LocalDate firstDay, int i) {
+        return firstDay.plusDays(i / SLOTS_PER_DAY);
+    }
+
+    private static LocalTime slotOf(int i) {
+        return LocalTime.of(9, 0).plusMinutes(30L * (i % SLOTS_PER_DAY));
+    }
+
+    private static long timed(Runnable run) {
+        long started = System.nanoTime();
+        run.run();
+        return System.nanoTime() - started;
+    }
+
+    private static void report(String name, long nanos) {
+        System.out.printf("%-24s %,10.0f entities/s %8.1f s for %,d entities%n",
+                name, ENTITIES / (nanos / 1e9), nanos / 1e9, ENTITIES);
+    }
+}
@@ -0,0 +1,127 @@
+package com.hms.benchmark;
+
+import com.hms.entity.Money;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput and allocation of bulk bill computation: the BigDecimal arithmetic of
+ * Bill.calculateAmounts plus per-patient outstanding sums (as in invoicing and the balance
+ * ledger) against the same work in Money cents. Both paths read and produce BigDecimal, so
+ * the Money path pays its conversions at that boundary.
+ *
+ * Scores are per bill: ops/s is bills/s and the gc profiler's gc.alloc.rate.norm is bytes
+ * per bill. The test checks both paths agree, then runs JMH with the gc profiler:
+ *
+ *   mvn -Pbenchmark test -Dtest=MoneyBenchmark
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(MoneyBenchmark.BILLS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class MoneyBenchmark {
+
+    static final int BILLS = 100_000;
+    private static final int PATIENTS = 1_000;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final BigDecimal TAX = new BigDecimal("7.25");
+    private static final BigDecimal DISCOUNT = new BigDecimal("2.50");
+
+    private BigDecimal[] unitPrices;
+    private int[] quantities;
+    private BigDecimal[] paid;
+    private int[] patients;
+
+    @Setup
+    public void generate() {
+        Random random = new Random(42);
+        unitPrices = new BigDecimal[BILLS];
+        quantities = new int[BILLS];
+        paid = new BigDecimal[BILLS];
+        patients = new int[BILLS];
+        for (int i = 0; i < BILLS; i++) {
+            unitPrices[i] = BigDecimal.valueOf(500 + random.nextInt(5_000_000), 2);
+            quantities[i] = 1 + random.nextInt(5);
+            paid[i] = random.nextInt(4) == 0 ? BigDecimal.valueOf(random.nextInt(10_000), 2) : BigDecimal.ZERO.setScale(2);
+            patients[i] = random.nextInt(PATIENTS);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal[] bigDecimal() {
+        BigDecimal[] sums = new BigDecimal[PATIENTS];
+        for (int i = 0; i < BILLS; i++) {
+            BigDecimal total = unitPrices[i].multiply(BigDecimal.valueOf(quantities[i])).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal taxAmount = total.multiply(TAX).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+            BigDecimal discountAmount = total.multiply(DISCOUNT).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+            BigDecimal remaining = total.add(taxAmount).subtract(discountAmount).subtract(paid[i]).max(BigDecimal.ZERO);
+            BigDecimal sum = sums[patients[i]];
+            sums[patients[i]] = sum == null ? remaining : sum.add(remaining);
+        }
+        return sums;
+    }
+
+    @Benchmark
+    public BigDecimal[] money() {
+        long taxBasisPoints = Money.basisPoints(TAX);
+        long discountBasisPoints = Money.basisPoints(DISCOUNT);
+        long[] cents = new long[PATIENTS];
+        boolean[] seen = new boolean[PATIENTS];
+        for (int i = 0; i < BILLS; i++) {
+            Money total = Money.of(unitPrices[i]).times(quantities[i]);
+            Money remaining = total.plus(total.percentage(taxBasisPoints)).minus(total.percentage(discountBasisPoints))
+                    .minus(Money.of(paid[i])).max(Money.ZERO);
+            cents[patients[i]] = Math.addExact(cents[patients[i]], remaining.minorUnits());
+            seen[patients[i]] = true;
+        }
+        BigDecimal[] sums = new BigDecimal[PATIENTS];
+        for (int p = 0; p < PATIENTS; p++) {
+            sums[p] = seen[p] ? new Money(cents[p]).toBigDecimal() : null;
+        }
+        return sums;
+    }
+
+    @Test
+    void compareBigDecimalWithMoney() throws Exception {
+        generate();
+        BigDecimal[] expected = bigDecimal();
+        BigDecimal[] actual = money();
+        for (int p = 0; p < PATIENTS; p++) {
+            if (expected[p] == null) {
+                assertThat(actual[p]).as("patient %d", p).isNull();
+            } else {
+                assertThat(actual[p]).as("patient %d", p).isEqualByComparingTo(expected[p]);
+            }
+        }
+
+        new Runner(new OptionsBuilder()
+                .include(MoneyBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.hms.controller;
+
+import com.hms.SqlRecorder;
+import com.hms.TestFixtures;
+import com.hms.TestcontainersConfiguration;
+import com.hms.entity.Patient;
+import com.hms.entity.User;
+import com.hms.security.CustomUserDetails;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The doctor's keyset appointment listing: pages follow the continuation token without gaps
+ * or repeats, each page is one SQL statement, and the count is only run when asked for.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import({TestcontainersConfiguration.class, SqlRecorder.class})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class DoctorEndpointTest {
+
+    private static final int HISTORY_DAYS = 15;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestFixtures fixtures;
+
+    private CustomUserDetails principal;
+    private Patient patient;
+
+    @BeforeAll
+    void seed() {
+        User doctor = fixtures.doctors(1).get(0);
+        patient = fixtures.patients(1).get(0);
+        fixtures.history(patient, doctor, HISTORY_DAYS);
+        principal = CustomUserDetails.create(doctor);
+    }
+
+    @Test
+    void scrollWalksEveryAppointmentOnce() throws Exception {
+        List<Number> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            String url = "/hms/api/doctor/appointments/scroll?size=10" + (cursor != null ? "&cursor=" + cursor : "");
+            String[] body = new String[1];
+            SqlRecorder.Recording recording = SqlRecorder.record(() -> {
+                try {
+                    body[0] = mockMvc.perform(get(url).with(user(principal)))
+                            .andExpect(status().isOk())
+                            .andExpect(jsonPath("$.totalElements").doesNotExist())
+                            .andExpect(jsonPath("$.content[0].patientId").value(patient.getId()))
+                            .andReturn().getResponse().getContentAsString();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertThat(recording.statements()).hasSize(1);
+            ids.addAll(JsonPath.read(body[0], "$.content[*].id"));
+            cursor = JsonPath.read(body[0], "$.nextCursor");
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(2);
+        assertThat(ids).hasSize(HISTORY_DAYS).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void totalIsCountedOnRequest() throws Exception {
+        mockMvc.perform(get("/hms/api/doctor/appointments/scroll?size=5&includeTotal=true").with(user(principal)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(5))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").value(HISTORY_DAYS));
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() throws Exception {
+        mockMvc.perform(get("/hms/api/doctor/appointments/scroll?cursor=not-a-cursor").with(user(principal)))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,147 @@
+package com.hms.controller;
+
+import com.hms.SqlRecorder;
+import com.hms.TestFixtures;
+import com.hms.TestcontainersConfiguration;
+import com.hms.entity.Bill;
+import com.hms.entity.Patient;
+import com.hms.entity.User;
+import com.hms.repository.PatientRepository;
+import com.hms.security.CustomUserDetails;
+import com.hms.service.BillService;
+import com.hms.service.ResourceStampService;
+import com.hms.service.ResourceStampService.Scope;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The patient-facing list endpoints and the dashboard read flat projections with a fixed
+ * number of SQL statements, with no lazy loads of doctors, departments or patients while
+ * serializing. The history is longer than the largest page, so the paged listing also runs
+ * its count query. Each request additionally issues exactly one ResourceStampService query
+ * for its conditional GET check, which is matched against the statement that service sends.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import({TestcontainersConfiguration.class, SqlRecorder.class})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PatientEndpointQueryCountTest {
+
+    private static final int HISTORY_DAYS = 60;
+    private static final int BILLS = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private BillService billService;
+    @Autowired
+    private ResourceStampService resourceStampService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private CustomUserDetails principal;
+    private Long patientId;
+
+    @BeforeAll
+    void seed() {
+        User doctor = fixtures.doctors(1).get(0);
+        User patientUser = fixtures.patients(1).get(0).getUser();
+        // The patient endpoints look rows up by the signed-in user's id
+        jdbcTemplate.update("INSERT INTO patients (id, user_id, patient_id, is_active, is_deleted, version) "
+                + "VALUES (?, ?, ?, TRUE, FALSE, 0)", patientUser.getId(), patientUser.getId(), "U" + patientUser.getId());
+        Patient patient = patientRepository.findById(patientUser.getId()).orElseThrow();
+        fixtures.history(patient, doctor, HISTORY_DAYS);
+        for (int i = 1; i <= BILLS; i++) {
+            billService.createBill(bill(patient, LocalDate.now().minusDays(i)));
+        }
+        patientId = patient.getId();
+        principal = CustomUserDetails.create(patientUser);
+    }
+
+    static Stream<Arguments> lists() {
+        return Stream.of(
+                // Page of 50 out of 60 rows: the content query plus its count query
+                Arguments.of("/hms/api/patient/appointments?size=50", Scope.APPOINTMENTS, 2),
+                Arguments.of("/hms/api/patient/appointments/scroll?size=10", Scope.APPOINTMENTS, 1),
+                Arguments.of("/hms/api/patient/prescriptions/scroll?size=10", Scope.PRESCRIPTIONS, 1),
+                Arguments.of("/hms/api/patient/medical-records/scroll?size=10", Scope.MEDICAL_RECORDS, 1),
+                Arguments.of("/hms/api/patient/bills/scroll?size=10", Scope.BILLS, 1));
+    }
+
+    @ParameterizedTest
+    @MethodSource("lists")
+    void listIsReadInFixedStatements(String url, Scope scope, int dataStatements) {
+        assertStatements(url, jsonPath("$.content").isNotEmpty(), dataStatements, scope);
+    }
+
+    @Test
+    void dashboardReadsEachPartInOneStatement() {
+        // Recent appointments, records and prescriptions, and the ledger's outstanding amount
+        assertStatements("/hms/api/patient/dashboard", jsonPath("$.unavailable").isEmpty(), 4,
+                Scope.APPOINTMENTS, Scope.MEDICAL_RECORDS, Scope.PRESCRIPTIONS, Scope.BILLS);
+    }
+
+    private void assertStatements(String url, ResultMatcher body, int dataStatements, Scope... stampScopes) {
+        String stampSql = SqlRecorder.record(() -> resourceStampService.stampForPatient(patientId, stampScopes))
+                .statements().get(0);
+        SqlRecorder.Recording recording = SqlRecorder.record(() -> {
+            try {
+                mockMvc.perform(get(url).with(user(principal)))
+                        .andExpect(status().isOk())
+                        .andExpect(body);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        List<String> statements = new ArrayList<>(recording.statements());
+        assertThat(Collections.frequency(statements, stampSql)).as("stamp queries").isEqualTo(1);
+        statements.remove(stampSql);
+        assertThat(statements).hasSize(dataStatements);
+    }
+
+    private static Bill bill(Patient patient, LocalDate date) {
+        Bill bill = new Bill();
+        bill.setPatient(patient);
+        bill.setBillDate(date);
+        bill.setDueDate(date.plusDays(30));
+        bill.setBillType(Bill.BillType.CONSULTATION);
+        bill.setItemName("Consultation");
+        bill.setQuantity(1);
+        bill.setUnitPrice(new BigDecimal("150.00"));
+        bill.calculateAmounts();
+        bill.setStatus(Bill.BillStatus.PENDING);
+        bill.setPaymentStatus(Bill.PaymentStatus.PENDING);
+        return bill;
+    }
+}
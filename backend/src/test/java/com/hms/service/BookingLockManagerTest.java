@@ -0,0 +1,78 @@
+package com.hms.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingLockManagerTest {
+
+    private static final int ROUNDS = 2_000;
+
+    @Test
+    void seriesOverTheSameStripesInOppositeDateOrderDoNotDeadlock() throws Exception {
+        // A 500 ms timeout turns a lock-order deadlock into a SlotUnavailableException
+        BookingLockManager locks = new BookingLockManager(null, "local", 8, 500);
+        LocalDate start = LocalDate.of(2030, 1, 1);
+        List<LocalDate> ascending = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ascending.add(start.plusDays(i));
+        }
+        List<LocalDate> descending = new ArrayList<>(ascending);
+        Collections.reverse(descending);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch ready = new CountDownLatch(2);
+        List<Future<?>> results = List.of(
+                executor.submit(() -> lockRepeatedly(locks, ascending, ready)),
+                executor.submit(() -> lockRepeatedly(locks, descending, ready)));
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void datesSharingAStripeLockItOnce() {
+        BookingLockManager locks = new BookingLockManager(null, "local", 1, 500);
+        inTransaction(() -> {
+            locks.lockAllForTransaction(7L, List.of(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 2)));
+            assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+        });
+    }
+
+    private static Void lockRepeatedly(BookingLockManager locks, List<LocalDate> dates, CountDownLatch ready)
+            throws InterruptedException {
+        ready.countDown();
+        ready.await();
+        for (int i = 0; i < ROUNDS; i++) {
+            inTransaction(() -> locks.lockAllForTransaction(7L, dates));
+        }
+        return null;
+    }
+
+    /** Stands in for a transaction: runs the body, then completes the registered synchronizations. */
+    private static void inTransaction(Runnable body) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            body.run();
+        } finally {
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.hms.service;
+
+import com.hms.repository.AppointmentRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DoctorScheduleIndexTest {
+
+    private static final Long DOCTOR = 7L;
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 1);
+    private static final LocalTime TEN = LocalTime.of(10, 0);
+
+    private final DoctorScheduleIndex index = new DoctorScheduleIndex(emptySchedule(), 5);
+
+    @Test
+    void holdSurvivesInvalidate() {
+        assertThat(index.tryHold(DOCTOR, DATE, TEN, 30)).isTrue();
+
+        index.invalidate(DOCTOR, DATE);
+
+        assertThat(index.tryReserve(DOCTOR, DATE, TEN, 30)).isFalse();
+    }
+
+    @Test
+    void releaseKeepsHeldSlotsOccupied() {
+        assertThat(index.tryReserve(DOCTOR, DATE, LocalTime.of(9, 30), 60)).isTrue();
+        index.release(DOCTOR, DATE, LocalTime.of(9, 30), 60);
+        assertThat(index.tryHold(DOCTOR, DATE, TEN, 30)).isTrue();
+
+        index.release(DOCTOR, DATE, LocalTime.of(9, 30), 60);
+
+        assertThat(index.isAvailable(DOCTOR, DATE, LocalTime.of(9, 30), 30)).isTrue();
+        assertThat(index.isAvailable(DOCTOR, DATE, TEN, 30)).isFalse();
+    }
+
+    @Test
+    void releaseHoldFreesTheSlot() {
+        assertThat(index.tryHold(DOCTOR, DATE, TEN, 30)).isTrue();
+
+        index.releaseHold(DOCTOR, DATE, TEN, 30);
+        index.invalidate(DOCTOR, DATE);
+
+        assertThat(index.tryReserve(DOCTOR, DATE, TEN, 30)).isTrue();
+    }
+
+    private static AppointmentRepository emptySchedule() {
+        AppointmentRepository repository = mock(AppointmentRepository.class);
+        when(repository.findOccupiedSlots(any(), any())).thenReturn(List.of());
+        return repository;
+    }
+}
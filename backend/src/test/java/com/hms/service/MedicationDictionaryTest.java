@@ -0,0 +1,54 @@
+package com.hms.service;
+
+import com.hms.dto.MedicationCount;
+import com.hms.dto.MedicationSuggestion;
+import com.hms.entity.Prescription;
+import com.hms.repository.PrescriptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MedicationDictionaryTest {
+
+    private final PrescriptionRepository prescriptionRepository = mock(PrescriptionRepository.class);
+    private final MedicationDictionary dictionary = new MedicationDictionary(prescriptionRepository, 10);
+
+    @BeforeEach
+    void build() {
+        when(prescriptionRepository.countByMedicationAndGenericName()).thenReturn(List.of(
+                new MedicationCount("Paracetamol", " paracetamol ", 3L),
+                new MedicationCount("Tylenol", "Paracetamol", 2L),
+                new MedicationCount("Panadol", null, 1L)));
+        dictionary.rebuild();
+    }
+
+    @Test
+    void prescriptionWithSameGenericAndMedicationNameCountsOnce() {
+        assertThat(dictionary.complete("pa", 10)).containsExactly(
+                new MedicationSuggestion("Paracetamol", 5),
+                new MedicationSuggestion("Panadol", 1));
+    }
+
+    @Test
+    void rebuildMatchesIncrementalCounting() {
+        dictionary.onPrescriptionChanged(createdEvent("Paracetamol", "PARACETAMOL"));
+
+        assertThat(dictionary.complete("para", 10)).containsExactly(new MedicationSuggestion("Paracetamol", 6));
+    }
+
+    @Test
+    void negativeLimitReturnsNothing() {
+        assertThat(dictionary.complete("pa", -1)).isEmpty();
+    }
+
+    private static PrescriptionChangedEvent createdEvent(String medicationName, String genericName) {
+        return new PrescriptionChangedEvent(1L, 1L, 1L, LocalDate.now(), medicationName, genericName, "500mg",
+                Prescription.PrescriptionStatus.PRESCRIBED, false, true);
+    }
+}
@@ -0,0 +1,133 @@
+package com.hms.service;
+
+import com.hms.TestFixtures;
+import com.hms.TestcontainersConfiguration;
+import com.hms.dto.PaymentReceipt;
+import com.hms.entity.Bill;
+import com.hms.entity.Patient;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Posts 10,000 payments of 1.00 spread over 100 bills from 64 concurrent clients, and replays
+ * 1,000 of them with the same idempotency key the way a gateway repeats its callbacks. Every
+ * bill must end up exactly 100.00 paid with 100 bill_payments rows, and the balance ledger must
+ * reconcile without drift.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class PaymentConcurrencyTest {
+
+    private static final int BILLS = 100;
+    private static final int PAYMENTS_PER_BILL = 100;
+    private static final int REPLAYS = 1_000;
+    private static final int CLIENTS = 64;
+    private static final BigDecimal PAYMENT = new BigDecimal("1.00");
+
+    @Autowired
+    private BillService billService;
+    @Autowired
+    private PatientBalanceLedger balanceLedger;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private record Posting(Long billId, String idempotencyKey) {}
+
+    @Test
+    void concurrentPaymentsLeaveExactBalances() throws Exception {
+        String run = "stress-" + UUID.randomUUID();
+        List<Patient> patients = fixtures.patients(BILLS / 4);
+        List<Long> billIds = new ArrayList<>(BILLS);
+        for (int i = 0; i < BILLS; i++) {
+            billIds.add(billService.createBill(bill(patients.get(i % patients.size()), run)).getId());
+        }
+
+        List<Posting> postings = new ArrayList<>(BILLS * PAYMENTS_PER_BILL + REPLAYS);
+        for (Long billId : billIds) {
+            for (int i = 0; i < PAYMENTS_PER_BILL; i++) {
+                postings.add(new Posting(billId, run + "-" + billId + "-" + i));
+            }
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < REPLAYS; i++) {
+            postings.add(postings.get(random.nextInt(BILLS * PAYMENTS_PER_BILL)));
+        }
+        Collections.shuffle(postings, new Random(42));
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger replayed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<?>> results = new ArrayList<>(CLIENTS);
+        for (int c = 0; c < CLIENTS; c++) {
+            results.add(executor.submit(() -> {
+                for (int i = next.getAndIncrement(); i < postings.size(); i = next.getAndIncrement()) {
+                    Posting posting = postings.get(i);
+                    PaymentReceipt receipt = billService.recordPayment(posting.billId(), posting.idempotencyKey(),
+                            PAYMENT, Bill.PaymentMethod.CREDIT_CARD, posting.idempotencyKey());
+                    if (receipt.replayed()) {
+                        replayed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        assertThat(replayed.get()).isEqualTo(REPLAYS);
+        List<Map<String, Object>> bills = jdbcTemplate.queryForList("""
+                SELECT b.id, b.paid_amount,
+                       (SELECT COUNT(*) FROM bill_payments p WHERE p.bill_id = b.id) AS payments,
+                       (SELECT SUM(p.amount) FROM bill_payments p WHERE p.bill_id = b.id) AS posted
+                FROM bills b WHERE b.item_name = ?""", run);
+        assertThat(bills).hasSize(BILLS);
+        BigDecimal expected = PAYMENT.multiply(BigDecimal.valueOf(PAYMENTS_PER_BILL));
+        for (Map<String, Object> bill : bills) {
+            assertThat((BigDecimal) bill.get("paid_amount")).as("bill %s paid", bill.get("id")).isEqualByComparingTo(expected);
+            assertThat((BigDecimal) bill.get("posted")).as("bill %s posted", bill.get("id")).isEqualByComparingTo(expected);
+            assertThat(((Number) bill.get("payments")).intValue()).as("bill %s payments", bill.get("id"))
+                    .isEqualTo(PAYMENTS_PER_BILL);
+        }
+        assertThat(balanceLedger.reconcile().driftCount()).isZero();
+    }
+
+    private static Bill bill(Patient patient, String itemName) {
+        Bill bill = new Bill();
+        bill.setPatient(patient);
+        bill.setBillDate(LocalDate.now());
+        bill.setDueDate(LocalDate.now().plusDays(30));
+        bill.setBillType(Bill.BillType.PROCEDURE);
+        bill.setItemName(itemName);
+        bill.setQuantity(1);
+        bill.setUnitPrice(new BigDecimal("500.00"));
+        bill.calculateAmounts();
+        bill.setStatus(Bill.BillStatus.PENDING);
+        bill.setPaymentStatus(Bill.PaymentStatus.PENDING);
+        return bill;
+    }
+}
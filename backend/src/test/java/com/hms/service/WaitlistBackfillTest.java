@@ -0,0 +1,89 @@
+package com.hms.service;
+
+import com.hms.TestFixtures;
+import com.hms.TestcontainersConfiguration;
+import com.hms.dto.FreeSlot;
+import com.hms.dto.WaitlistOffer;
+import com.hms.entity.Appointment;
+import com.hms.entity.Patient;
+import com.hms.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A cancelled appointment frees its exact doctor, date and time: the slot can be offered to
+ * the waitlist and accepted, or booked again directly, while the cancelled row stays.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+class WaitlistBackfillTest {
+
+    private static final LocalTime TIME = LocalTime.of(10, 0);
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private WaitlistService waitlistService;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void acceptedOfferBooksTheCancelledSlot() {
+        User doctor = fixtures.doctors(1).get(0);
+        List<Patient> patients = fixtures.patients(2);
+        Patient booked = patients.get(0);
+        Patient waiting = patients.get(1);
+        LocalDate date = LocalDate.now().plusDays(10);
+
+        Appointment original = appointmentService.bookAppointment(booked, doctor, date, TIME.toString(), "Checkup", null);
+        waitlistService.join(waiting.getId(), doctor.getId(), date, date, false);
+        appointmentService.cancelAppointment(original.getId(), "Patient unavailable");
+
+        List<WaitlistOffer> offers = waitlistService.getOffersForPatient(waiting.getId());
+        assertThat(offers).hasSize(1);
+        assertThat(offers.get(0).date()).isEqualTo(date);
+        assertThat(offers.get(0).time()).isEqualTo(TIME);
+
+        Appointment backfilled = waitlistService.accept(offers.get(0).id(), waiting, "Waitlist", null);
+
+        assertThat(backfilled.getStatus()).isEqualTo(Appointment.AppointmentStatus.SCHEDULED);
+        assertThat(waitlistService.getOffersForPatient(waiting.getId())).isEmpty();
+        assertThat(statusesAt(doctor, date)).containsExactlyInAnyOrder("CANCELLED", "SCHEDULED");
+    }
+
+    @Test
+    void cancelledSlotIsFreeAndBookableAgain() {
+        User doctor = fixtures.doctors(1).get(0);
+        List<Patient> patients = fixtures.patients(2);
+        LocalDate date = LocalDate.now().plusDays(10);
+
+        Appointment original = appointmentService.bookAppointment(patients.get(0), doctor, date, TIME.toString(),
+                "Checkup", null);
+        appointmentService.cancelAppointment(original.getId(), "Patient unavailable");
+
+        assertThat(appointmentService.isDoctorAvailable(doctor, date, TIME)).isTrue();
+        assertThat(appointmentService.findEarliestFreeSlots(List.of(doctor), date, 1, 100))
+                .extracting(FreeSlot::time).contains(TIME);
+        appointmentService.bookAppointment(patients.get(1), doctor, date, TIME.toString(), "Checkup", null);
+        assertThat(statusesAt(doctor, date)).containsExactlyInAnyOrder("CANCELLED", "SCHEDULED");
+    }
+
+    private List<String> statusesAt(User doctor, LocalDate date) {
+        return jdbcTemplate.queryForList(
+                "SELECT status FROM appointments WHERE doctor_id = ? AND appointment_date = ? AND appointment_time = ?",
+                String.class, doctor.getId(), date, TIME);
+    }
+}
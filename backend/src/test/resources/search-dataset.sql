@@ -0,0 +1,51 @@
+-- Synthetic data set for benchmarking the trigram search (SearchService)
+-- Loads 2,000,000 patient users plus their patients rows into a scratch database.
+-- Run after the application has created the schema and search-indexes.sql:
+--   psql -d hms_bench -f backend/src/test/resources/search-dataset.sql
+
+BEGIN;
+
+CREATE TEMP TABLE bench_first_names (name) AS VALUES
+    ('james'), ('mary'), ('john'), ('patricia'), ('robert'), ('jennifer'), ('michael'), ('linda'),
+    ('william'), ('elizabeth'), ('david'), ('barbara'), ('richard'), ('susan'), ('joseph'), ('jessica'),
+    ('thomas'), ('sarah'), ('charles'), ('karen'), ('mohammed'), ('priya'), ('wei'), ('olga'),
+    ('carlos'), ('fatima'), ('hiroshi'), ('aisha'), ('dmitri'), ('lucia');
+
+CREATE TEMP TABLE bench_last_names (name) AS VALUES
+    ('smith'), ('johnson'), ('williams'), ('brown'), ('jones'), ('garcia'), ('miller'), ('davis'),
+    ('rodriguez'), ('martinez'), ('hernandez'), ('lopez'), ('gonzalez'), ('wilson'), ('anderson'),
+    ('thomas'), ('taylor'), ('moore'), ('jackson'), ('martin'), ('nguyen'), ('patel'), ('kim'),
+    ('ivanov'), ('tanaka'), ('okafor'), ('schmidt'), ('rossi'), ('kowalski'), ('silva');
+
+-- Names combine a base name with a numeric suffix so the trigram posting lists have a
+-- realistic spread instead of thirty giant ones.
+INSERT INTO users (id, first_name, last_name, email, password, phone_number, role, is_verified, is_active,
+                   is_deleted, login_attempts, created_at, updated_at, version)
+SELECT nextval('hms_id_seq'),
+       initcap(f.name) || CASE WHEN g % 7 = 0 THEN '' ELSE chr(97 + (g % 26)) END,
+       initcap(l.name) || (g % 997),
+       f.name || '.' || l.name || g || '@bench.example',
+       '$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2.uheWG/igi',
+       '+1-555-' || lpad((g % 10000)::text, 4, '0'),
+       'PATIENT', TRUE, TRUE, FALSE, 0, now(), now(), 0
+FROM generate_series(1, 2000000) AS g
+JOIN LATERAL (SELECT name FROM bench_first_names OFFSET (g * 7919) % 30 LIMIT 1) f ON TRUE
+JOIN LATERAL (SELECT name FROM bench_last_names OFFSET (g * 104729) % 30 LIMIT 1) l ON TRUE;
+
+INSERT INTO patients (id, user_id, patient_id, follow_up_required, is_active, is_deleted, created_at, updated_at, version)
+SELECT nextval('hms_id_seq'), u.id, 'BEN' || lpad(row_number() OVER (ORDER BY u.id)::text, 8, '0'),
+       FALSE, TRUE, FALSE, now(), now(), 0
+FROM users u
+WHERE u.email LIKE '%@bench.example';
+
+COMMIT;
+
+ANALYZE users;
+ANALYZE patients;
+
+-- Typical type-ahead probes (exact, prefix, typo, patient number), to run with EXPLAIN ANALYZE:
+--   SELECT set_config('pg_trgm.word_similarity_threshold', '0.3', false);
+--   SELECT u.id FROM users u WHERE 'patel12' <% lower(u.first_name || ' ' || u.last_name);
+--   SELECT u.id FROM users u WHERE 'jonh smit' <% lower(u.first_name || ' ' || u.last_name);
+--   SELECT u.id FROM users u WHERE 'priya.patel' <% lower(u.email);
+--   SELECT p.id FROM patients p WHERE 'ben0001234' <% lower(p.patient_id);